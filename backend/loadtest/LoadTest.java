@@ -0,0 +1,353 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-model HTTP load generator for the AurumX API (no dependencies, JDK 17+)
+ *
+ * Every client loops over its profile as fast as responses come back. Latencies of all requests
+ * after the warm-up are kept and reported as one JSON document, overall and per step, so runs
+ * against platform and virtual threads can be diffed.
+ *
+ * Profiles:
+ *   browse  - read-heavy mix (customer page, customer, reward balance, catalog)
+ *   shopper - one customer session per iteration: login, browse catalog, add to cart, view cart,
+ *             redeem, view redemption history. Each client first accrues its customer's rewards.
+ *
+ *   java loadtest/LoadTest.java --clients 1000 --duration 60 --label virtual --out target/load-virtual.json
+ *   java loadtest/LoadTest.java --profile shopper --clients 200 --duration 120 --label shopper
+ *
+ * Options: --base-url (http://localhost:8080/api), --username (admin), --password (password123),
+ *          --profile (browse), --clients (1000), --duration seconds (60), --warmup seconds (10),
+ *          --ramp-up seconds (10), --label (run), --out file (stdout only when omitted)
+ */
+public class LoadTest {
+    
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    // Catalog items serialize their own id right before the nested category
+    private static final Pattern ITEM_ID = Pattern.compile("\\{\"id\"\\s*:\\s*(\\d+)\\s*,\\s*\"category\"");
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080/api");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int rampUpSeconds = Integer.parseInt(options.getOrDefault("ramp-up", "10"));
+        String label = options.getOrDefault("label", "run");
+        String profile = options.getOrDefault("profile", "browse");
+        String username = options.getOrDefault("username", "admin");
+        String password = options.getOrDefault("password", "password123");
+        if (!profile.equals("browse") && !profile.equals("shopper")) {
+            throw new IllegalArgumentException("Unknown profile " + profile + ", expected browse or shopper");
+        }
+        
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        
+        String token = login(http, baseUrl, username, password);
+        List<Long> customerIds = fetchCustomerIds(http, baseUrl, token);
+        if (customerIds.isEmpty()) {
+            throw new IllegalStateException("No customers found; create some (or run the data generator) first");
+        }
+        
+        List<String> paths = new ArrayList<>();
+        paths.add("/customers?page=0&size=20");
+        paths.add("/catalog/categories");
+        for (Long id : customerIds) {
+            paths.add("/customers/" + id);
+            paths.add("/rewards/balance/" + id);
+        }
+        List<Long> itemIds = profile.equals("shopper") ? fetchItemIds(http, baseUrl, token) : List.of();
+        
+        long startNanos = System.nanoTime();
+        long measureFrom = startNanos + Duration.ofSeconds(rampUpSeconds + warmupSeconds).toNanos();
+        long stopAt = measureFrom + Duration.ofSeconds(durationSeconds).toNanos();
+        
+        ClientStats[] stats = new ClientStats[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            ClientStats clientStats = new ClientStats();
+            stats[c] = clientStats;
+            long startDelayNanos = rampUpSeconds == 0 ? 0 : Duration.ofSeconds(rampUpSeconds).toNanos() * c / clients;
+            int offset = c;
+            Thread thread = new Thread(() -> {
+                try {
+                    sleepUntil(startNanos + startDelayNanos);
+                    Session session = new Session(http, baseUrl, token, measureFrom, stopAt, clientStats);
+                    if (profile.equals("shopper")) {
+                        shop(session, username, password, customerIds.get(offset % customerIds.size()), itemIds, offset);
+                    } else {
+                        int next = offset;
+                        while (System.nanoTime() < stopAt) {
+                            session.get("browse", paths.get(next++ % paths.size()));
+                        }
+                    }
+                } catch (IOException ex) {
+                    // Setup of a shopper session failed, this client records nothing
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + c);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        
+        String report = report(label, profile, clients, durationSeconds, stats);
+        System.out.println(report);
+        if (options.containsKey("out")) {
+            Path out = Path.of(options.get("out"));
+            if (out.getParent() != null) {
+                Files.createDirectories(out.getParent());
+            }
+            Files.writeString(out, report);
+        }
+    }
+    
+    /**
+     * Replays one customer session per iteration until the run ends
+     */
+    private static void shop(Session session, String username, String password, Long customerId,
+                             List<Long> itemIds, int offset) throws IOException, InterruptedException {
+        if (itemIds.isEmpty()) {
+            throw new IllegalStateException("No available catalog items");
+        }
+        // Unmeasured setup: a card to redeem against, and an accrued balance to spend
+        Matcher card = ID.matcher(session.fetch("/credit-cards/customer/" + customerId));
+        if (!card.find()) {
+            return;
+        }
+        long creditCardId = Long.parseLong(card.group(1));
+        session.post("setup", "/rewards/process/" + customerId, null);
+        
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
+        int next = offset;
+        while (System.nanoTime() < session.stopAt) {
+            session.post("login", "/auth/login", credentials);
+            session.get("catalog-categories", "/catalog/categories");
+            session.get("catalog-items", "/catalog/items");
+            long itemId = itemIds.get(next++ % itemIds.size());
+            session.post("cart-add", "/cart/add",
+                    "{\"customerId\":" + customerId + ",\"rewardItemId\":" + itemId + ",\"quantity\":1}");
+            session.get("cart-view", "/cart/" + customerId);
+            session.post("redeem", "/cart/" + customerId + "/redeem?creditCardId=" + creditCardId, null);
+            session.get("redemption-history", "/cart/redemption-history/" + customerId);
+        }
+    }
+    
+    private static List<Long> fetchItemIds(HttpClient http, String baseUrl, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/catalog/items"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        List<Long> ids = new ArrayList<>();
+        Matcher matcher = ITEM_ID.matcher(http.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        return ids;
+    }
+    
+    private static String login(HttpClient http, String baseUrl, String username, String password) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}"))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login failed: HTTP " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+    
+    private static List<Long> fetchCustomerIds(HttpClient http, String baseUrl, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/customers?page=0&size=100"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Long> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(response.body());
+        while (matcher.find()) {
+            ids.add(Long.parseLong(matcher.group(1)));
+        }
+        return ids;
+    }
+    
+    private static String report(String label, String profile, int clients, int durationSeconds, ClientStats[] stats) {
+        Summary overall = new Summary();
+        Map<String, Summary> steps = new TreeMap<>();
+        for (ClientStats clientStats : stats) {
+            for (int i = 0; i < clientStats.count; i++) {
+                overall.add(clientStats.latencies[i], clientStats.statuses[i]);
+                steps.computeIfAbsent(clientStats.steps[i], step -> new Summary())
+                        .add(clientStats.latencies[i], clientStats.statuses[i]);
+            }
+        }
+        
+        StringBuilder stepJson = new StringBuilder();
+        steps.forEach((step, summary) -> {
+            if (!stepJson.isEmpty()) {
+                stepJson.append(",\n");
+            }
+            stepJson.append("    \"").append(step).append("\": ").append(summary.toJson(durationSeconds));
+        });
+        
+        return String.format(Locale.ROOT,
+                "{\n" +
+                "  \"label\": \"%s\",\n" +
+                "  \"profile\": \"%s\",\n" +
+                "  \"clients\": %d,\n" +
+                "  \"durationSeconds\": %d,\n" +
+                "  \"overall\": %s,\n" +
+                "  \"steps\": {\n%s\n  }\n" +
+                "}",
+                label, profile, clients, durationSeconds, overall.toJson(durationSeconds), stepJson);
+    }
+    
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000.0;
+    }
+    
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+        }
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+    
+    /**
+     * One client's HTTP calls; only calls inside the measurement window are recorded
+     */
+    private record Session(HttpClient http, String baseUrl, String token, long measureFrom, long stopAt,
+                           ClientStats stats) {
+        
+        void get(String step, String path) throws InterruptedException {
+            send(step, request(path).GET().build());
+        }
+        
+        void post(String step, String path, String json) throws InterruptedException {
+            HttpRequest.BodyPublisher body = json == null
+                    ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofString(json);
+            send(step, request(path).header("Content-Type", "application/json").POST(body).build());
+        }
+        
+        String fetch(String path) throws IOException, InterruptedException {
+            return http.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofString()).body();
+        }
+        
+        private HttpRequest.Builder request(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(30));
+        }
+        
+        private void send(String step, HttpRequest request) throws InterruptedException {
+            long sent = System.nanoTime();
+            int status;
+            try {
+                status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException ex) {
+                status = -1;
+            }
+            long received = System.nanoTime();
+            if (sent >= measureFrom && received <= stopAt) {
+                stats.record(step, received - sent, status);
+            }
+        }
+    }
+    
+    /**
+     * Written by one client thread only, read after all clients finished
+     */
+    private static final class ClientStats {
+        private long[] latencies = new long[1024];
+        private int[] statuses = new int[1024];
+        private String[] steps = new String[1024];
+        private int count;
+        
+        void record(String step, long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+                statuses = Arrays.copyOf(statuses, count * 2);
+                steps = Arrays.copyOf(steps, count * 2);
+            }
+            latencies[count] = latencyNanos;
+            statuses[count] = status;
+            steps[count] = step;
+            count++;
+        }
+    }
+    
+    private static final class Summary {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+        
+        void add(long latencyNanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            statuses.merge(status, 1L, Long::sum);
+        }
+        
+        String toJson(int durationSeconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            long errors = statuses.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 400)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            
+            StringBuilder statusJson = new StringBuilder();
+            statuses.forEach((status, statusCount) -> {
+                if (!statusJson.isEmpty()) {
+                    statusJson.append(", ");
+                }
+                statusJson.append('"').append(status).append("\": ").append(statusCount);
+            });
+            
+            return String.format(Locale.ROOT,
+                    "{\"requests\": %d, \"errors\": %d, \"throughputPerSecond\": %.1f, " +
+                    "\"latencyMillis\": {\"p50\": %.2f, \"p90\": %.2f, \"p99\": %.2f, \"p999\": %.2f, \"max\": %.2f}, " +
+                    "\"statuses\": {%s}}",
+                    count, errors, (double) count / durationSeconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1.0),
+                    statusJson);
+        }
+    }
+}
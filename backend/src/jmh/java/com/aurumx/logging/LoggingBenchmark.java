@@ -0,0 +1,153 @@
+package com.aurumx.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.JsonEncoder;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost of one request on the request thread, per appender setup
+ * debugRequest replays the former defaults (security and SQL at DEBUG), infoRequest the same
+ * calls at the current INFO levels, sampledInfoRequest adds the prod 1-in-100 sampling.
+ * The jwtError pair compares a bad token logged every time with the per-minute rate limit.
+ * Output goes to a null stream so only formatting, encoding and hand-off are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+    
+    @Param({"sync-pattern", "async-json"})
+    private String appender;
+    
+    private LoggerContext context;
+    private Logger verboseSecurity;
+    private Logger verboseSql;
+    private Logger security;
+    private Logger sql;
+    private Logger rewardService;
+    private Logger cartService;
+    private Logger jwt;
+    private RateLimitedLog jwtRejections;
+    
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        
+        SamplingTurboFilter sampling = new SamplingTurboFilter();
+        sampling.setLoggerPrefix("com.aurumx.service.CartService");
+        sampling.setSampleRate(100);
+        sampling.setContext(context);
+        sampling.start();
+        context.addTurboFilter(sampling);
+        
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(createAppender());
+        
+        // The former logging.level settings, kept under their own prefix
+        context.getLogger("verbose").setLevel(Level.DEBUG);
+        verboseSecurity = context.getLogger("verbose.org.springframework.security.web.FilterChainProxy");
+        verboseSql = context.getLogger("verbose.org.hibernate.SQL");
+        
+        security = context.getLogger("org.springframework.security.web.FilterChainProxy");
+        sql = context.getLogger("org.hibernate.SQL");
+        rewardService = context.getLogger("com.aurumx.service.RewardService");
+        cartService = context.getLogger("com.aurumx.service.CartService");
+        jwt = context.getLogger("com.aurumx.security.JwtTokenProvider");
+        jwtRejections = new RateLimitedLog(jwt, Duration.ofMinutes(1), 10);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+    
+    @Benchmark
+    public void debugRequest() {
+        request(verboseSecurity, verboseSql, rewardService);
+    }
+    
+    @Benchmark
+    public void infoRequest() {
+        request(security, sql, rewardService);
+    }
+    
+    @Benchmark
+    public void sampledInfoRequest() {
+        request(security, sql, cartService);
+    }
+    
+    @Benchmark
+    public void jwtErrorUnlimited() {
+        jwt.error("Expired JWT token");
+    }
+    
+    @Benchmark
+    public void jwtErrorRateLimited() {
+        jwtRejections.warn("expired", "Expired JWT token");
+    }
+    
+    /**
+     * Log calls of a typical authenticated write: filter chain, a handful of statements, one summary line
+     */
+    private static void request(Logger securityLog, Logger sqlLog, Logger serviceLog) {
+        securityLog.debug("Securing {} {}", "POST", "/api/cart/42/redeem");
+        securityLog.debug("Set SecurityContextHolder to {}", "UsernamePasswordAuthenticationToken [Principal=admin]");
+        securityLog.debug("Secured {} {}", "POST", "/api/cart/42/redeem");
+        sqlLog.debug("select c1_0.id,c1_0.name from customer c1_0 where c1_0.id=?");
+        sqlLog.debug("select r1_0.id,r1_0.balance from reward r1_0 where r1_0.customer_id=?");
+        sqlLog.debug("select ci1_0.id,ci1_0.quantity from cart_item ci1_0 where ci1_0.customer_id=?");
+        sqlLog.debug("update reward set balance=?,version=? where id=? and version=?");
+        serviceLog.info("Processed rewards for card {}. New points: {}", 1042L, "125.50");
+    }
+    
+    private Appender<ILoggingEvent> createAppender() {
+        OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+        output.setContext(context);
+        output.setOutputStream(OutputStream.nullOutputStream());
+        
+        if ("sync-pattern".equals(appender)) {
+            output.setEncoder(patternEncoder());
+            output.start();
+            return output;
+        }
+        
+        JsonEncoder encoder = new JsonEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        output.setEncoder(encoder);
+        output.start();
+        
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setNeverBlock(true);
+        async.addAppender(output);
+        async.start();
+        return async;
+    }
+    
+    private Encoder<ILoggingEvent> patternEncoder() {
+        // Spring Boot's console pattern without colours
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+        return encoder;
+    }
+}
@@ -0,0 +1,153 @@
+package com.aurumx.service;
+
+import com.aurumx.AurumxApplication;
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.dto.request.ReplaceCartRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Reward;
+import com.aurumx.entity.RewardCategory;
+import com.aurumx.entity.RewardItem;
+import com.aurumx.repository.RewardCategoryRepository;
+import com.aurumx.repository.RewardItemRepository;
+import com.aurumx.repository.RewardRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput of the generate-transactions and redeem paths, before and after pooled ids
+ * batchSize=1 sends one INSERT per row, which is what GenerationType.IDENTITY forced on every entity;
+ * batchSize=50 is the configured hibernate.jdbc.batch_size that pooled sequence ids make possible.
+ * Runs against an in-memory H2 database by default, where a round trip is cheap; pass
+ * -p jdbcUrl=jdbc:mysql://... -p username=... -p password=... to measure against MySQL.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertThroughputBenchmark {
+    
+    private static final int REDEMPTION_BALANCE = 50_000_000;
+    
+    @Param({"1", "50"})
+    private int batchSize;
+    
+    @Param({"500"})
+    private int transactionsPerCall;
+    
+    @Param({"20"})
+    private int itemsPerRedemption;
+    
+    @Param({"jdbc:h2:mem:insert-benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,TRANSACTION"})
+    private String jdbcUrl;
+    
+    @Param({"sa"})
+    private String username;
+    
+    @Param({""})
+    private String password;
+    
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private CartService cartService;
+    private Long customerId;
+    private Long creditCardId;
+    private ReplaceCartRequest cart;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--aurumx.transaction.generation-count=" + transactionsPerCall,
+                "--aurumx.accrual-pipeline.enabled=false",
+                "--logging.level.root=WARN"));
+        if (jdbcUrl.startsWith("jdbc:h2:")) {
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        }
+        context = new SpringApplicationBuilder(AurumxApplication.class).run(args.toArray(String[]::new));
+        transactionService = context.getBean(TransactionService.class);
+        cartService = context.getBean(CartService.class);
+        
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Benchmark Customer");
+        customer.setEmail("insert-benchmark-" + batchSize + "@aurumx.test");
+        customer.setPhone("9000000000");
+        customer.setAssociationDate(LocalDate.now().minusYears(1));
+        customerId = context.getBean(CustomerService.class).createCustomer(customer).getId();
+        
+        AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+        cardRequest.setCustomerId(customerId);
+        cardRequest.setCardNumber(String.format("4%015d", batchSize));
+        cardRequest.setCardHolderName("Benchmark Customer");
+        cardRequest.setExpiryDate(LocalDate.now().plusYears(3));
+        CreditCard card = context.getBean(CreditCardService.class).addCreditCard(cardRequest);
+        creditCardId = card.getId();
+        
+        // Enough points for every redemption the run can make
+        Reward reward = new Reward();
+        reward.setCreditCard(card);
+        reward.setCustomer(card.getCustomer());
+        reward.setPointsBalance(BigDecimal.valueOf(REDEMPTION_BALANCE));
+        reward.setLifetimeEarned(BigDecimal.valueOf(REDEMPTION_BALANCE));
+        context.getBean(RewardRepository.class).save(reward);
+        context.getBean(RewardSummaryService.class).rebuild(customerId);
+        
+        RewardCategory category = context.getBean(RewardCategoryRepository.class)
+                .save(new RewardCategory(null, "Benchmark", "Insert benchmark items", 1));
+        RewardItemRepository rewardItemRepository = context.getBean(RewardItemRepository.class);
+        cart = new ReplaceCartRequest();
+        for (int i = 0; i < itemsPerRedemption; i++) {
+            RewardItem item = rewardItemRepository.save(
+                    new RewardItem(null, category, "Benchmark item " + i, "Insert benchmark item", 1, true));
+            ReplaceCartRequest.Item line = new ReplaceCartRequest.Item();
+            line.setRewardItemId(item.getId());
+            line.setQuantity(1);
+            cart.getItems().add(line);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @State(Scope.Thread)
+    public static class FilledCart {
+        
+        @Setup(Level.Invocation)
+        public void fill(InsertThroughputBenchmark benchmark) {
+            benchmark.cartService.replaceCart(benchmark.customerId, benchmark.cart);
+        }
+    }
+    
+    /**
+     * transactionsPerCall transaction rows in one transaction
+     */
+    @Benchmark
+    public int generateTransactions() {
+        return transactionService.generateTransactions(creditCardId).size();
+    }
+    
+    /**
+     * One redemption history row and itemsPerRedemption redemption item rows
+     */
+    @Benchmark
+    public Object redeemCart(FilledCart filledCart) {
+        return cartService.redeemCart(customerId, creditCardId);
+    }
+}
@@ -0,0 +1,115 @@
+package com.aurumx.service;
+
+import com.aurumx.dto.response.RewardBalanceResponse;
+import com.aurumx.repository.CreditCardRepository;
+import com.aurumx.util.Points;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pure-CPU hot paths of {@link RewardService}: per-transaction point calculation,
+ * balance aggregation and the card breakdown returned by the balance endpoint
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RewardServiceBenchmark {
+    
+    @Param({"1000"})
+    private int transactionCount;
+    
+    @Param({"4"})
+    private int cardCount;
+    
+    private BigDecimal[] amounts;
+    private List<CreditCardRepository.CardPoints> cards;
+    private String cardNumber;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[transactionCount];
+        for (int i = 0; i < transactionCount; i++) {
+            amounts[i] = BigDecimal.valueOf(100 + random.nextInt(999_900), 2);
+        }
+        
+        cards = new ArrayList<>(cardCount);
+        for (int i = 0; i < cardCount; i++) {
+            cards.add(new BenchCardPoints((long) i,
+                    String.format("4%015d", random.nextLong(1_000_000_000_000_000L)),
+                    BigDecimal.valueOf(random.nextInt(1_000_000), 2)));
+        }
+        cardNumber = cards.get(0).getCardNumber();
+    }
+    
+    /**
+     * The BigDecimal calculation accrual used before {@link Points}, kept as a baseline
+     */
+    @Benchmark
+    public BigDecimal calculateRewardPointsBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount
+                    .multiply(BigDecimal.valueOf(2))
+                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public long calculateRewardPoints() {
+        long total = Points.ZERO;
+        for (BigDecimal amount : amounts) {
+            total = Points.add(total, Points.accrue(amount, 2));
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public BigDecimal aggregateBalances() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (CreditCardRepository.CardPoints card : cards) {
+            total = total.add(card.getPoints());
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public List<RewardBalanceResponse.CardRewardDto> cardBreakdown() {
+        return RewardService.toCardRewards(cards);
+    }
+    
+    @Benchmark
+    public void maskCardNumber(Blackhole blackhole) {
+        blackhole.consume(RewardService.maskCardNumber(cardNumber));
+    }
+    
+    private record BenchCardPoints(Long creditCardId, String cardNumber, BigDecimal points)
+            implements CreditCardRepository.CardPoints {
+        
+        @Override
+        public Long getCreditCardId() {
+            return creditCardId;
+        }
+        
+        @Override
+        public String getCardNumber() {
+            return cardNumber;
+        }
+        
+        @Override
+        public BigDecimal getPoints() {
+            return points;
+        }
+    }
+}
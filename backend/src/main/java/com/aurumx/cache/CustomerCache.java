@@ -0,0 +1,47 @@
+package com.aurumx.cache;
+
+import com.aurumx.config.CacheConfig;
+import com.aurumx.dto.response.CustomerResponse;
+import com.aurumx.dto.response.RewardBalanceResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Cached reads of GET /rewards/balance/{customerId} and GET /customers/{id}
+ * Both views include the reward balance, so any write that changes a customer's balance,
+ * cards or record calls invalidate(customerId), which evicts both on every node.
+ */
+@Component
+public class CustomerCache {
+    
+    private final TieredCache<RewardBalanceResponse> balances;
+    private final TieredCache<CustomerResponse> customers;
+    
+    public CustomerCache(CacheConfig cacheConfig,
+                         ObjectProvider<RemoteCacheTier> remoteCacheTier,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry) {
+        RemoteCacheTier remote = remoteCacheTier.getIfAvailable();
+        this.balances = new TieredCache<>("reward-balances", RewardBalanceResponse.class,
+                cacheConfig, remote, objectMapper, meterRegistry);
+        this.customers = new TieredCache<>("customers", CustomerResponse.class,
+                cacheConfig, remote, objectMapper, meterRegistry);
+    }
+    
+    public RewardBalanceResponse getBalance(Long customerId, Supplier<RewardBalanceResponse> loader) {
+        return balances.get(customerId, loader);
+    }
+    
+    public CustomerResponse getCustomer(Long customerId, Supplier<CustomerResponse> loader) {
+        return customers.get(customerId, loader);
+    }
+    
+    public void invalidate(Long customerId) {
+        balances.evict(customerId);
+        customers.evict(customerId);
+    }
+}
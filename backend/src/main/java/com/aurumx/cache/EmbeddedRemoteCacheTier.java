@@ -0,0 +1,61 @@
+package com.aurumx.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory stand-in for a shared cache store, enabled with aurumx.cache.remote=embedded
+ * Listeners are called synchronously, so several TieredCache instances sharing one
+ * EmbeddedRemoteCacheTier behave like nodes sharing a store with instant invalidation.
+ */
+@Component
+@ConditionalOnProperty(name = "aurumx.cache.remote", havingValue = "embedded")
+public class EmbeddedRemoteCacheTier implements RemoteCacheTier {
+    
+    private record Entry(byte[] value, long expiresAtMillis) {
+    }
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, String>> listeners = new CopyOnWriteArrayList<>();
+    
+    @Override
+    public byte[] get(String cacheName, String key) {
+        String storeKey = storeKey(cacheName, key);
+        Entry entry = entries.get(storeKey);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAtMillis()) {
+            entries.remove(storeKey, entry);
+            return null;
+        }
+        return entry.value();
+    }
+    
+    @Override
+    public void put(String cacheName, String key, byte[] value, Duration ttl) {
+        entries.put(storeKey(cacheName, key), new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+    
+    @Override
+    public void evict(String cacheName, String key) {
+        entries.remove(storeKey(cacheName, key));
+        listeners.forEach(listener -> listener.accept(cacheName, key));
+    }
+    
+    @Override
+    public void addInvalidationListener(BiConsumer<String, String> listener) {
+        listeners.add(listener);
+    }
+    
+    private static String storeKey(String cacheName, String key) {
+        return cacheName + ':' + key;
+    }
+}
@@ -0,0 +1,27 @@
+package com.aurumx.cache;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * Shared second tier behind the in-process caches of every backend node
+ * Values are opaque bytes so any key-value store can back it. An eviction must be
+ * delivered to the invalidation listeners of all nodes, including the one that evicted,
+ * so each node can drop its in-process copy.
+ */
+public interface RemoteCacheTier {
+    
+    /**
+     * @return the stored value, or null if absent or expired
+     */
+    byte[] get(String cacheName, String key);
+    
+    void put(String cacheName, String key, byte[] value, Duration ttl);
+    
+    void evict(String cacheName, String key);
+    
+    /**
+     * Register a listener called with (cacheName, key) for every eviction on any node
+     */
+    void addInvalidationListener(BiConsumer<String, String> listener);
+}
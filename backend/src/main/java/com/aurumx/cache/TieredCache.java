@@ -0,0 +1,207 @@
+package com.aurumx.cache;
+
+import com.aurumx.config.CacheConfig;
+import com.aurumx.logging.RateLimitedLog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache with a bounded TTL tier in process and an optional shared RemoteCacheTier
+ * A local miss tries the remote tier before the loader; loaded values are written to both.
+ * Values are not cached while the caller is inside a read-write transaction, since they may
+ * include uncommitted changes. A load that overlaps an eviction is returned but not stored,
+ * so a read racing a write cannot put the pre-write value back.
+ */
+@Slf4j
+public class TieredCache<V> {
+    
+    private static final RateLimitedLog remoteFailures = new RateLimitedLog(log, Duration.ofMinutes(1), 5);
+    
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+    
+    private final String name;
+    private final Class<V> type;
+    private final CacheConfig cacheConfig;
+    private final RemoteCacheTier remote;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entry<V>> local = new ConcurrentHashMap<>();
+    
+    // Bumped by every eviction on this node or, through the remote tier, on any node
+    private final AtomicLong generation = new AtomicLong();
+    
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter evictions;
+    
+    /**
+     * @param remote shared tier, or null to cache in process only
+     */
+    public TieredCache(String name, Class<V> type, CacheConfig cacheConfig, RemoteCacheTier remote,
+                       ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.type = type;
+        this.cacheConfig = cacheConfig;
+        this.remote = remote;
+        this.objectMapper = objectMapper;
+        
+        this.localHits = gets(meterRegistry, "local", "hit");
+        this.localMisses = gets(meterRegistry, "local", "miss");
+        this.remoteHits = gets(meterRegistry, "remote", "hit");
+        this.remoteMisses = gets(meterRegistry, "remote", "miss");
+        this.evictions = Counter.builder("aurumx.cache.evictions")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("aurumx.cache.size", local, Map::size)
+                .tag("cache", name)
+                .tag("tier", "local")
+                .register(meterRegistry);
+        
+        if (remote != null) {
+            remote.addInvalidationListener((cacheName, key) -> {
+                if (name.equals(cacheName)) {
+                    generation.incrementAndGet();
+                    local.remove(key);
+                }
+            });
+        }
+    }
+    
+    public V get(Object key, Supplier<V> loader) {
+        if (!cacheConfig.isEnabled() || inReadWriteTransaction()) {
+            return loader.get();
+        }
+        
+        String cacheKey = key.toString();
+        long now = System.currentTimeMillis();
+        Entry<V> entry = local.get(cacheKey);
+        if (entry != null && now < entry.expiresAtMillis()) {
+            localHits.increment();
+            return entry.value();
+        }
+        localMisses.increment();
+        
+        long seen = generation.get();
+        V value = readRemote(cacheKey);
+        if (value == null) {
+            value = loader.get();
+            if (value != null && generation.get() == seen) {
+                writeRemote(cacheKey, value);
+            }
+        }
+        if (value != null && generation.get() == seen) {
+            putLocal(cacheKey, value, now);
+        }
+        return value;
+    }
+    
+    /**
+     * Evict a key on all nodes once the surrounding transaction commits, or now outside one
+     * A read that cached the pre-commit state meanwhile is evicted with it, and one still loading
+     * is not stored. A rolled-back write evicts nothing.
+     */
+    public void evict(Object key) {
+        String cacheKey = key.toString();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(cacheKey);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(cacheKey);
+            }
+        });
+    }
+    
+    private void invalidate(String cacheKey) {
+        generation.incrementAndGet();
+        local.remove(cacheKey);
+        evictions.increment();
+        if (remote != null) {
+            try {
+                remote.evict(name, cacheKey);
+            } catch (RuntimeException ex) {
+                // Other nodes keep their copy until localTtlSeconds expires
+                remoteFailures.warn("evict", "Remote cache evict failed for " + name + ": " + ex);
+            }
+        }
+    }
+    
+    private V readRemote(String cacheKey) {
+        if (remote == null) {
+            return null;
+        }
+        try {
+            byte[] bytes = remote.get(name, cacheKey);
+            if (bytes != null) {
+                remoteHits.increment();
+                return objectMapper.readValue(bytes, type);
+            }
+        } catch (IOException | RuntimeException ex) {
+            remoteFailures.warn("get", "Remote cache read failed for " + name + ": " + ex);
+        }
+        remoteMisses.increment();
+        return null;
+    }
+    
+    private void writeRemote(String cacheKey, V value) {
+        if (remote == null) {
+            return;
+        }
+        try {
+            remote.put(name, cacheKey, objectMapper.writeValueAsBytes(value),
+                    Duration.ofSeconds(cacheConfig.getRemoteTtlSeconds()));
+        } catch (IOException | RuntimeException ex) {
+            remoteFailures.warn("put", "Remote cache write failed for " + name + ": " + ex);
+        }
+    }
+    
+    private void putLocal(String cacheKey, V value, long now) {
+        int maxSize = cacheConfig.getLocalMaxSize();
+        if (local.size() >= maxSize) {
+            makeRoom(now, maxSize);
+        }
+        local.put(cacheKey, new Entry<>(value, now + cacheConfig.getLocalTtlSeconds() * 1000));
+    }
+    
+    private void makeRoom(long now, int maxSize) {
+        local.values().removeIf(entry -> now >= entry.expiresAtMillis());
+        
+        // Still full: drop a tenth of the entries in iteration order rather than scanning for the oldest
+        Iterator<String> keys = local.keySet().iterator();
+        int target = maxSize - Math.max(1, maxSize / 10);
+        while (local.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private Counter gets(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("aurumx.cache.gets")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,37 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.accrual-job")
+@Data
+public class AccrualJobConfig {
+    
+    /**
+     * Enable the scheduled portfolio-wide reward accrual job
+     * Default: true
+     */
+    private boolean enabled = true;
+    
+    /**
+     * Cron expression for the nightly run
+     * Default: 0 0 2 * * * (02:00 every night)
+     */
+    private String cron = "0 0 2 * * *";
+    
+    /**
+     * Number of credit cards processed per chunk
+     * Each chunk runs in its own database transaction
+     * Default: 100
+     */
+    private int chunkSize = 100;
+    
+    /**
+     * Number of chunks processed in parallel
+     * Also bounds the size of the job's worker pool
+     * Default: 4
+     */
+    private int parallelism = 4;
+}
@@ -0,0 +1,44 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.accrual-partitions")
+@Data
+public class AccrualPartitionConfig {
+    
+    /**
+     * Coordinate reward accrual across backend nodes through partition leases in the database
+     * Required when more than one node runs against the same database
+     * Default: false
+     */
+    private boolean enabled = false;
+    
+    /**
+     * Number of partitions cards are spread over (card id modulo partitions)
+     * Must be the same on every node
+     * Default: 64
+     */
+    private int partitions = 64;
+    
+    /**
+     * Identity of this node in leases and job checkpoints; must be unique and stable across restarts
+     * Default: local
+     */
+    private String nodeId = "local";
+    
+    /**
+     * How long a lease and a node heartbeat stay valid without renewal
+     * A node that stops renewing loses its partitions to the other nodes after this long
+     * Default: 30 seconds
+     */
+    private long leaseTtlSeconds = 30;
+    
+    /**
+     * Interval between heartbeats, lease renewals and rebalancing
+     * Default: 10000
+     */
+    private long renewIntervalMs = 10000;
+}
@@ -0,0 +1,49 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.accrual-pipeline")
+@Data
+public class AccrualPipelineConfig {
+    
+    /**
+     * Accrue rewards in the background as soon as new transactions are committed
+     * When disabled, transactions wait for the process endpoints or the nightly job
+     * Default: true
+     */
+    private boolean enabled = true;
+    
+    /**
+     * Number of worker threads; a card is always handled by the same worker
+     * Default: 2
+     */
+    private int workers = 2;
+    
+    /**
+     * Maximum number of distinct cards waiting, across all workers
+     * Default: 10000
+     */
+    private int queueCapacity = 10000;
+    
+    /**
+     * How long a publisher waits for room in a full queue before the card is dropped
+     * Dropped cards keep their unprocessed transactions for the nightly accrual job
+     * Default: 50
+     */
+    private long offerTimeoutMs = 50;
+    
+    /**
+     * Attempts per card before giving up on a failing accrual
+     * Default: 3
+     */
+    private int maxAttempts = 3;
+    
+    /**
+     * Base delay between attempts, doubled after each failure
+     * Default: 200
+     */
+    private long retryBackoffMs = 200;
+}
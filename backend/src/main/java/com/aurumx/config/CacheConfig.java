@@ -0,0 +1,43 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.cache")
+@Data
+public class CacheConfig {
+    
+    /**
+     * Serve reward balances and customers from the cache; when false every read goes to the database
+     * Default: true
+     */
+    private boolean enabled = true;
+    
+    /**
+     * How long an entry is kept in the in-process tier
+     * Bounds staleness if an invalidation from another node is lost
+     * Default: 30 seconds
+     */
+    private long localTtlSeconds = 30;
+    
+    /**
+     * Maximum entries per cache in the in-process tier
+     * Default: 10000
+     */
+    private int localMaxSize = 10000;
+    
+    /**
+     * Remote tier: none, or embedded (in-memory stand-in for a shared store, for tests and single-node runs)
+     * A RemoteCacheTier bean supplied by the deployment is used regardless of this setting
+     * Default: none
+     */
+    private String remote = "none";
+    
+    /**
+     * How long an entry is kept in the remote tier
+     * Default: 300 seconds
+     */
+    private long remoteTtlSeconds = 300;
+}
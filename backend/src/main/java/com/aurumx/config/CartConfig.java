@@ -0,0 +1,37 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.cart")
+@Data
+public class CartConfig {
+    
+    /**
+     * Keep carts in memory and write their changes to cart_item in the background
+     * Carts are then only consistent within one node; disable when requests for a customer
+     * can reach several nodes, and every change is written through before the request returns
+     * Default: true
+     */
+    private boolean writeBehind = true;
+    
+    /**
+     * Delay between background writes of changed carts
+     * Default: 1000
+     */
+    private long flushIntervalMs = 1000;
+    
+    /**
+     * Number of locks carts are striped over by customer id
+     * Default: 64
+     */
+    private int lockStripes = 64;
+    
+    /**
+     * Unchanged carts not used for this long are dropped from memory and reloaded on next use
+     * Default: 1800 seconds
+     */
+    private long idleTtlSeconds = 1800;
+}
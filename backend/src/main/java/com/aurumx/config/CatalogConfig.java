@@ -0,0 +1,18 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.catalog")
+@Data
+public class CatalogConfig {
+    
+    /**
+     * How often the in-memory catalog snapshot is reloaded and compared with the database
+     * The snapshot is only swapped (and the ETag changed) when the content differs
+     * Default: 60000 (1 minute)
+     */
+    private long refreshIntervalMs = 60000;
+}
@@ -0,0 +1,31 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.customer-search")
+@Data
+public class CustomerSearchConfig {
+    
+    /**
+     * Serve customer searches from the in-memory index instead of LIKE queries
+     * Default: true
+     */
+    private boolean enabled = true;
+    
+    /**
+     * How often the index is rebuilt from the database
+     * Changes made through this node are applied immediately; the rebuild picks up
+     * changes made by other nodes and compacts entries left by deletions
+     * Default: 900000 (15 minutes)
+     */
+    private long rebuildIntervalMs = 900000;
+    
+    /**
+     * Rows fetched per query while (re)building the index
+     * Default: 5000
+     */
+    private int loadBatchSize = 5000;
+}
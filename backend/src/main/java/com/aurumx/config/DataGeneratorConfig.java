@@ -0,0 +1,29 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.data-generator")
+@Data
+public class DataGeneratorConfig {
+    
+    /**
+     * Allow the synthetic data endpoint; keep disabled outside local and capacity-test environments
+     * Default: false
+     */
+    private boolean enabled = false;
+    
+    /**
+     * Transaction dates are spread over this many days before the day of the run
+     * Default: 365
+     */
+    private int historyDays = 365;
+    
+    /**
+     * Customer association dates are spread over this many years, which mixes regular and premium customers
+     * Default: 10
+     */
+    private int associationYears = 10;
+}
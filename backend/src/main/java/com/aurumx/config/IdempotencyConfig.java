@@ -0,0 +1,31 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.idempotency")
+@Data
+public class IdempotencyConfig {
+    
+    /**
+     * Honour the Idempotency-Key header on redemption and transaction generation
+     * When disabled the header is ignored and every request executes
+     * Default: true
+     */
+    private boolean enabled = true;
+    
+    /**
+     * How long a stored response is replayed for the same key
+     * Clients must not retry with the same key after this long
+     * Default: 86400 seconds (24 hours)
+     */
+    private long ttlSeconds = 86400;
+    
+    /**
+     * Interval between purges of expired keys
+     * Default: 600000
+     */
+    private long purgeIntervalMs = 600000;
+}
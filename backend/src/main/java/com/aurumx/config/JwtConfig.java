@@ -20,4 +20,10 @@ public class JwtConfig {
      * Default: 86400000 (24 hours)
      */
     private long expiration;
+    
+    /**
+     * Log lines per minute for each kind of rejected token, the rest are counted and suppressed
+     * Default: 10
+     */
+    private int invalidTokenLogLimitPerMinute = 10;
 }
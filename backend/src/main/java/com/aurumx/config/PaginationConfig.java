@@ -20,4 +20,14 @@ public class PaginationConfig {
      * Default: 100
      */
     private int maxPageSize;
+    
+    /**
+     * Requested page size capped at maxPageSize; non-positive sizes get the default
+     */
+    public int resolvePageSize(int requestedSize) {
+        if (requestedSize <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requestedSize, maxPageSize);
+    }
 }
@@ -0,0 +1,18 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.redemption")
+@Data
+public class RedemptionConfig {
+    
+    /**
+     * How many times a redemption is retried when it conflicts with a
+     * concurrent redemption or accrual on the same card
+     * Default: 3
+     */
+    private int maxRetries = 3;
+}
@@ -22,4 +22,17 @@ public class RewardConfig {
      * Change this value in application.yml to modify reward calculation
      */
     private int premiumPercentage;
+    
+    /**
+     * Accrue rewards with set-based UPDATE statements per card instead of
+     * loading and saving every transaction entity
+     * Default: false
+     */
+    private boolean bulkAccrual;
+    
+    /**
+     * Cron expression for the nightly check and rebuild of customer_reward_summary
+     * Default: 0 30 3 * * * (03:30 every night)
+     */
+    private String summaryReconcileCron = "0 30 3 * * *";
 }
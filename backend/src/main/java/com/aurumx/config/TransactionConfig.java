@@ -27,4 +27,10 @@ public class TransactionConfig {
      * Change this value in application.yml to generate more/fewer transactions
      */
     private int generationCount;
+    
+    /**
+     * Number of rows written per JDBC batch by the streaming ingestion endpoint
+     * Default: 1000
+     */
+    private int ingestBatchSize = 1000;
 }
@@ -0,0 +1,23 @@
+package com.aurumx.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "aurumx.security.user-cache")
+@Data
+public class UserCacheConfig {
+    
+    /**
+     * How long an authenticated principal is reused before ces_user is queried again
+     * Default: 300 seconds
+     */
+    private long ttlSeconds = 300;
+    
+    /**
+     * Maximum number of cached principals
+     * Default: 1000
+     */
+    private int maxSize = 1000;
+}
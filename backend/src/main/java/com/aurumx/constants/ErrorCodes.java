@@ -24,6 +24,12 @@ public class ErrorCodes {
     public static final String EMPTY_CART = "ERR_206";
     public static final String PARTIAL_REDEMPTION_NOT_ALLOWED = "ERR_207";
     public static final String INVALID_TRANSACTION_AMOUNT = "ERR_208";
+    public static final String CONCURRENT_MODIFICATION = "ERR_209";
+    public static final String IDEMPOTENCY_KEY_REUSED = "ERR_210";
+    public static final String IDEMPOTENT_REQUEST_IN_PROGRESS = "ERR_211";
+    
+    // Capacity
+    public static final String SERVICE_BUSY = "ERR_301";
     
     private ErrorCodes() {
         // Private constructor to prevent instantiation
@@ -1,11 +1,13 @@
 package com.aurumx.controller;
 
 import com.aurumx.dto.request.AddToCartRequest;
+import com.aurumx.dto.request.ReplaceCartRequest;
 import com.aurumx.dto.response.CartResponse;
 import com.aurumx.dto.response.RedemptionResponse;
 import com.aurumx.entity.CartItem;
 import com.aurumx.entity.RedemptionHistory;
 import com.aurumx.service.CartService;
+import com.aurumx.service.IdempotencyService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -33,6 +35,14 @@ public class CartController {
         return ResponseEntity.ok(cart);
     }
     
+    @PutMapping("/{customerId}")
+    public ResponseEntity<CartResponse> replaceCart(
+            @PathVariable Long customerId,
+            @Valid @RequestBody ReplaceCartRequest request) {
+        CartResponse cart = cartService.replaceCart(customerId, request);
+        return ResponseEntity.ok(cart);
+    }
+    
     @DeleteMapping("/items/{itemId}")
     public ResponseEntity<Void> removeFromCart(@PathVariable Long itemId) {
         cartService.removeFromCart(itemId);
@@ -48,8 +58,9 @@ public class CartController {
     @PostMapping("/{customerId}/redeem")
     public ResponseEntity<RedemptionResponse> redeemCart(
             @PathVariable Long customerId, 
-            @RequestParam(required = true) Long creditCardId) {
-        RedemptionResponse response = cartService.redeemCart(customerId, creditCardId);
+            @RequestParam(required = true) Long creditCardId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        RedemptionResponse response = cartService.redeemCart(customerId, creditCardId, idempotencyKey);
         return ResponseEntity.ok(response);
     }
     
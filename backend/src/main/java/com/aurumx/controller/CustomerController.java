@@ -1,6 +1,7 @@
 package com.aurumx.controller;
 
 import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.dto.response.CursorPage;
 import com.aurumx.dto.response.CustomerResponse;
 import com.aurumx.service.CustomerService;
 import jakarta.validation.Valid;
@@ -34,6 +35,17 @@ public class CustomerController {
         return ResponseEntity.ok(customers);
     }
     
+    /**
+     * Cursor-paginated listing ordered by id; pass nextCursor from the previous response to continue
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<CustomerResponse>> getAllCustomersCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<CustomerResponse> customers = customerService.getAllCustomers(cursor, size);
+        return ResponseEntity.ok(customers);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<CustomerResponse> getCustomerById(@PathVariable Long id) {
         CustomerResponse customer = customerService.getCustomerById(id);
@@ -0,0 +1,30 @@
+package com.aurumx.controller;
+
+import com.aurumx.dto.response.AccrualJobStatusResponse;
+import com.aurumx.job.RewardAccrualJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/rewards/accrual-job")
+@RequiredArgsConstructor
+public class RewardAccrualJobController {
+    
+    private final RewardAccrualJob rewardAccrualJob;
+    
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN_CES')")
+    public ResponseEntity<AccrualJobStatusResponse> runAccrualJob() {
+        boolean started = rewardAccrualJob.trigger();
+        HttpStatus status = started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(rewardAccrualJob.getStatus());
+    }
+    
+    @GetMapping("/status")
+    public ResponseEntity<AccrualJobStatusResponse> getAccrualJobStatus() {
+        return ResponseEntity.ok(rewardAccrualJob.getStatus());
+    }
+}
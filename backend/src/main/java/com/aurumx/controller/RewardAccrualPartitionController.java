@@ -0,0 +1,20 @@
+package com.aurumx.controller;
+
+import com.aurumx.dto.response.AccrualPartitionStatusResponse;
+import com.aurumx.service.AccrualPartitionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/rewards/accrual-partitions")
+@RequiredArgsConstructor
+public class RewardAccrualPartitionController {
+    
+    private final AccrualPartitionService accrualPartitionService;
+    
+    @GetMapping("/status")
+    public ResponseEntity<AccrualPartitionStatusResponse> getAccrualPartitionStatus() {
+        return ResponseEntity.ok(accrualPartitionService.getStatus());
+    }
+}
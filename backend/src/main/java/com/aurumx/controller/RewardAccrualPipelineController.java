@@ -0,0 +1,20 @@
+package com.aurumx.controller;
+
+import com.aurumx.dto.response.AccrualPipelineStatusResponse;
+import com.aurumx.job.RewardAccrualPipeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/rewards/accrual-pipeline")
+@RequiredArgsConstructor
+public class RewardAccrualPipelineController {
+    
+    private final RewardAccrualPipeline rewardAccrualPipeline;
+    
+    @GetMapping("/status")
+    public ResponseEntity<AccrualPipelineStatusResponse> getAccrualPipelineStatus() {
+        return ResponseEntity.ok(rewardAccrualPipeline.getStatus());
+    }
+}
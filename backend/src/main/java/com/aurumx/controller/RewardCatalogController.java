@@ -4,7 +4,9 @@ import com.aurumx.entity.RewardCategory;
 import com.aurumx.entity.RewardItem;
 import com.aurumx.service.RewardCatalogService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,20 +18,36 @@ public class RewardCatalogController {
     
     private final RewardCatalogService catalogService;
     
+    // Responses carry the snapshot ETag; Spring answers a matching If-None-Match with 304
+    
     @GetMapping("/categories")
     public ResponseEntity<List<RewardCategory>> getAllCategories() {
-        List<RewardCategory> categories = catalogService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        RewardCatalogService.CatalogSnapshot snapshot = catalogService.getSnapshot();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag())
+                .body(snapshot.categories());
     }
     
     @GetMapping("/items")
     public ResponseEntity<List<RewardItem>> getItemsByCategory(@RequestParam(required = false) Long categoryId) {
+        RewardCatalogService.CatalogSnapshot snapshot = catalogService.getSnapshot();
         List<RewardItem> items;
         if (categoryId != null) {
-            items = catalogService.getItemsByCategory(categoryId);
+            items = snapshot.getItemsByCategory(categoryId);
         } else {
-            items = catalogService.getAllAvailableItems();
+            items = snapshot.availableItems();
         }
-        return ResponseEntity.ok(items);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag())
+                .body(items);
+    }
+    
+    @PostMapping("/refresh")
+    @PreAuthorize("hasRole('ADMIN_CES')")
+    public ResponseEntity<Void> refreshCatalog() {
+        catalogService.refresh();
+        return ResponseEntity.noContent().build();
     }
 }
@@ -1,9 +1,14 @@
 package com.aurumx.controller;
 
+import com.aurumx.dto.response.ReconciliationResponse;
 import com.aurumx.dto.response.RewardBalanceResponse;
+import com.aurumx.service.RewardCatalogService;
 import com.aurumx.service.RewardService;
+import com.aurumx.service.RewardSummaryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
 
@@ -13,6 +18,7 @@ import java.util.List;
 public class RewardController {
     
     private final RewardService rewardService;
+    private final RewardSummaryService rewardSummaryService;
     
     @PostMapping("/process/{customerId}")
     public ResponseEntity<RewardBalanceResponse> processTransactions(@PathVariable Long customerId) {
@@ -32,19 +38,37 @@ public class RewardController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/summary/reconcile")
+    @PreAuthorize("hasRole('ADMIN_CES')")
+    public ResponseEntity<ReconciliationResponse> reconcileRewardSummaries() {
+        return ResponseEntity.ok(rewardSummaryService.reconcileAll());
+    }
+
     @GetMapping("/catalog/categories")
     public ResponseEntity<List<com.aurumx.entity.RewardCategory>> getCategories() {
-        return ResponseEntity.ok(rewardService.getCategories());
+        RewardCatalogService.CatalogSnapshot snapshot = rewardService.getCatalogSnapshot();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag())
+                .body(snapshot.categories());
     }
 
     @GetMapping("/catalog/items")
     public ResponseEntity<List<com.aurumx.entity.RewardItem>> getAllRewardItems() {
-        return ResponseEntity.ok(rewardService.getRewards(null));
+        RewardCatalogService.CatalogSnapshot snapshot = rewardService.getCatalogSnapshot();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag())
+                .body(snapshot.availableItems());
     }
 
     @GetMapping("/catalog/category/{categoryId}")
     public ResponseEntity<List<com.aurumx.entity.RewardItem>> getRewardItemsByCategory(@PathVariable Long categoryId) {
-        return ResponseEntity.ok(rewardService.getRewards(categoryId));
+        RewardCatalogService.CatalogSnapshot snapshot = rewardService.getCatalogSnapshot();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(snapshot.etag())
+                .body(snapshot.getItemsByCategory(categoryId));
     }
 
     @GetMapping("/history/{customerId}")
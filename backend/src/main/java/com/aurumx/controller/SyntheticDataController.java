@@ -0,0 +1,32 @@
+package com.aurumx.controller;
+
+import com.aurumx.dto.request.GenerateDataRequest;
+import com.aurumx.dto.response.DataGeneratorStatusResponse;
+import com.aurumx.service.SyntheticDataService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/data-generator")
+@RequiredArgsConstructor
+public class SyntheticDataController {
+    
+    private final SyntheticDataService syntheticDataService;
+    
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN_CES')")
+    public ResponseEntity<DataGeneratorStatusResponse> generate(@Valid @RequestBody GenerateDataRequest request) {
+        boolean started = syntheticDataService.trigger(request);
+        HttpStatus status = started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(syntheticDataService.getStatus());
+    }
+    
+    @GetMapping("/status")
+    public ResponseEntity<DataGeneratorStatusResponse> getStatus() {
+        return ResponseEntity.ok(syntheticDataService.getStatus());
+    }
+}
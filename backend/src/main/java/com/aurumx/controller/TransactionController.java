@@ -1,18 +1,28 @@
 package com.aurumx.controller;
 
 import com.aurumx.dto.request.GenerateTransactionsRequest;
+import com.aurumx.dto.response.CursorPage;
+import com.aurumx.dto.response.IngestionResponse;
+import com.aurumx.dto.response.TransactionResponse;
 import com.aurumx.entity.Transaction;
+import com.aurumx.service.IdempotencyService;
+import com.aurumx.service.TransactionIngestionService;
 import com.aurumx.service.TransactionService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -21,20 +31,58 @@ import java.util.List;
 public class TransactionController {
     
     private final TransactionService transactionService;
+    private final TransactionIngestionService transactionIngestionService;
+    private final IdempotencyService idempotencyService;
     
+    /**
+     * A retry with the same Idempotency-Key returns the transactions generated the first time
+     */
     @PostMapping("/generate")
-    public ResponseEntity<List<Transaction>> generateTransactions(@Valid @RequestBody GenerateTransactionsRequest request) {
-        List<Transaction> transactions = transactionService.generateTransactions(request.getCreditCardId());
+    public ResponseEntity<List<Transaction>> generateTransactions(
+            @Valid @RequestBody GenerateTransactionsRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        List<Transaction> transactions = idempotencyService.execute(idempotencyKey,
+                "POST /transactions/generate?creditCardId=" + request.getCreditCardId(),
+                new TypeReference<>() {},
+                () -> transactionService.generateTransactions(request.getCreditCardId()));
         return ResponseEntity.status(HttpStatus.CREATED).body(transactions);
     }
     
+    /**
+     * Stream card transactions in as newline-delimited JSON or CSV
+     * The body is parsed incrementally and written in JDBC batches
+     */
+    @PostMapping(value = "/ingest", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<IngestionResponse> ingestTransactions(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) throws IOException {
+        TransactionIngestionService.Format format = MediaType.parseMediaType(contentType)
+                .isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? TransactionIngestionService.Format.CSV
+                : TransactionIngestionService.Format.NDJSON;
+        IngestionResponse response = transactionIngestionService.ingest(body, format);
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/card/{cardId}")
-    public ResponseEntity<Page<Transaction>> getTransactionsByCard(
+    public ResponseEntity<Page<TransactionResponse>> getTransactionsByCard(
             @PathVariable Long cardId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("transactionDate").descending());
-        Page<Transaction> transactions = transactionService.getTransactionsByCard(cardId, pageable);
+        Page<TransactionResponse> transactions = transactionService.getTransactionsByCard(cardId, pageable);
+        return ResponseEntity.ok(transactions);
+    }
+    
+    /**
+     * Cursor-paginated history, newest first; pass nextCursor from the previous response to continue
+     */
+    @GetMapping("/card/{cardId}/cursor")
+    public ResponseEntity<CursorPage<TransactionResponse>> getTransactionsByCardCursor(
+            @PathVariable Long cardId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<TransactionResponse> transactions = transactionService.getTransactionsByCard(cardId, cursor, size);
         return ResponseEntity.ok(transactions);
     }
 }
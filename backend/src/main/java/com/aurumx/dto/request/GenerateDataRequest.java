@@ -0,0 +1,31 @@
+package com.aurumx.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class GenerateDataRequest {
+    
+    @NotNull(message = "Number of customers is required")
+    @Positive(message = "Number of customers must be greater than 0")
+    private Integer customers;
+    
+    @NotNull(message = "Cards per customer is required")
+    @Positive(message = "Cards per customer must be greater than 0")
+    @Max(value = 20, message = "Cards per customer must be at most 20")
+    private Integer cardsPerCustomer = 2;
+    
+    /**
+     * Defaults to aurumx.transaction.generation-count
+     */
+    @Positive(message = "Transactions per card must be greater than 0")
+    private Integer transactionsPerCard;
+    
+    /**
+     * Same seed, sizes and day of the run produce the same rows
+     */
+    @NotNull(message = "Seed is required")
+    private Long seed = 42L;
+}
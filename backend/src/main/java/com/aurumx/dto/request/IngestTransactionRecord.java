@@ -0,0 +1,22 @@
+package com.aurumx.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One card transaction of a streamed ingestion payload
+ * NDJSON: one object per line; CSV: creditCardId,amount,merchant,transactionDate
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestTransactionRecord {
+    private Long creditCardId;
+    private BigDecimal amount;
+    private String merchant;
+    private LocalDateTime transactionDate;
+}
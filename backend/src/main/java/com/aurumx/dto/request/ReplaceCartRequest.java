@@ -0,0 +1,28 @@
+package com.aurumx.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ReplaceCartRequest {
+    
+    @NotNull(message = "Items are required")
+    @Valid
+    private List<Item> items = new ArrayList<>();
+    
+    @Data
+    public static class Item {
+        
+        @NotNull(message = "Reward item ID is required")
+        private Long rewardItemId;
+        
+        @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be greater than 0")
+        private Integer quantity;
+    }
+}
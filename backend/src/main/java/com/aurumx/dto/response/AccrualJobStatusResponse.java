@@ -0,0 +1,25 @@
+package com.aurumx.dto.response;
+
+import com.aurumx.enums.AccrualJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccrualJobStatusResponse {
+    private Long runId;
+    private AccrualJobStatus status;
+    private boolean running;
+    private Long lastCardId;
+    private Long cardsProcessed;
+    private Long chunksCompleted;
+    private Long chunksFailed;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime completedAt;
+    private double cardsPerSecond;
+}
@@ -0,0 +1,18 @@
+package com.aurumx.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccrualPartitionStatusResponse {
+    private boolean enabled;
+    private String nodeId;
+    private int partitions;
+    private List<Integer> ownedPartitions;
+    private List<String> liveNodes;
+}
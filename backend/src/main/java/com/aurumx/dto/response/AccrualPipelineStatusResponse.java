@@ -0,0 +1,19 @@
+package com.aurumx.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccrualPipelineStatusResponse {
+    private boolean enabled;
+    private int queuedCards;
+    private long cardsEnqueued;
+    private long eventsCoalesced;
+    private long cardsProcessed;
+    private long attemptsRetried;
+    private long cardsFailed;
+    private long cardsDropped;
+}
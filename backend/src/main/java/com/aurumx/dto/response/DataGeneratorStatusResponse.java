@@ -0,0 +1,24 @@
+package com.aurumx.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataGeneratorStatusResponse {
+    private boolean running;
+    private Long seed;
+    private long customersTarget;
+    private long transactionsTarget;
+    private long customersCreated;
+    private long cardsCreated;
+    private long transactionsCreated;
+    private double transactionsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private String error;
+}
@@ -0,0 +1,35 @@
+package com.aurumx.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionResponse {
+    private long totalAccepted;
+    private long totalRejected;
+    private List<BatchResult> batches = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BatchResult {
+        private int batchNumber;
+        private int accepted;
+        private int rejected;
+        private List<RejectedLine> rejections; // Capped per batch
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedLine {
+        private long lineNumber;
+        private String reason;
+    }
+}
@@ -0,0 +1,13 @@
+package com.aurumx.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationResponse {
+    private long customersChecked;
+    private long summariesRebuilt;
+}
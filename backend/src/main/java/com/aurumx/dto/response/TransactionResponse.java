@@ -0,0 +1,26 @@
+package com.aurumx.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat view of a card transaction, read with a constructor expression so history pages
+ * never load Transaction, CreditCard or Customer entities
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionResponse {
+    private Long id;
+    private Long creditCardId;
+    private BigDecimal amount;
+    private String merchant;
+    private LocalDateTime transactionDate;
+    private boolean processed;
+    private BigDecimal rewardPoints;
+    private LocalDateTime createdAt;
+}
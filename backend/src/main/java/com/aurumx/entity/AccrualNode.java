@@ -0,0 +1,28 @@
+package com.aurumx.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Heartbeat of a backend node taking part in partitioned accrual
+ */
+@Entity
+@Table(name = "accrual_node", indexes = {
+        @Index(name = "idx_accrual_node_heartbeat", columnList = "heartbeat_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccrualNode {
+    
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+    
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
@@ -0,0 +1,32 @@
+package com.aurumx.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ownership of one accrual partition
+ * A lease is free when owner is null or expiresAt has passed. Accrual of a card locks its
+ * partition row for the rest of the transaction, which also holds off a takeover until it commits.
+ */
+@Entity
+@Table(name = "accrual_partition_lease", indexes = {
+        @Index(name = "idx_accrual_partition_lease_owner", columnList = "owner, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccrualPartitionLease {
+    
+    @Id
+    @Column(name = "partition_id")
+    private Integer partitionId;
+    
+    private String owner;
+    
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
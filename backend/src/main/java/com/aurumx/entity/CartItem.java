@@ -9,14 +9,18 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_item")
+@Table(name = "cart_item",
+        // One line per reward item; also serves lookups by customer
+        uniqueConstraints = @UniqueConstraint(name = "uk_cart_item_customer_item",
+                columnNames = {"customer_id", "reward_item_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class CartItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_item_seq")
+    @SequenceGenerator(name = "cart_item_seq", sequenceName = "cart_item_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -10,14 +10,17 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "credit_card")
+@Table(name = "credit_card", indexes = {
+        @Index(name = "idx_credit_card_customer", columnList = "customer_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class CreditCard {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "credit_card_seq")
+    @SequenceGenerator(name = "credit_card_seq", sequenceName = "credit_card_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "card_number", unique = true, nullable = false)
@@ -29,7 +32,7 @@ public class CreditCard {
     @Column(name = "expiry_date", nullable = false)
     private LocalDate expiryDate;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", nullable = false)
     @com.fasterxml.jackson.annotation.JsonIgnore
     @lombok.ToString.Exclude
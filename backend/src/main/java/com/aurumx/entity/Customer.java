@@ -11,14 +11,18 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "customer")
+@Table(name = "customer", indexes = {
+        // Active customer listing and keyset paging
+        @Index(name = "idx_customer_deleted_id", columnList = "deleted, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Customer {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -0,0 +1,35 @@
+package com.aurumx.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalised totals of all reward accounts of a customer
+ * Kept current by accrual and redemption in the same transaction,
+ * checked and rebuilt by the nightly reconciliation
+ */
+@Entity
+@Table(name = "customer_reward_summary")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRewardSummary {
+    
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+    
+    @Column(name = "points_balance", nullable = false, precision = 12, scale = 2)
+    private BigDecimal pointsBalance = BigDecimal.ZERO;
+    
+    @Column(name = "lifetime_earned", nullable = false, precision = 12, scale = 2)
+    private BigDecimal lifetimeEarned = BigDecimal.ZERO;
+    
+    @Column(name = "last_updated")
+    private LocalDateTime lastUpdated;
+}
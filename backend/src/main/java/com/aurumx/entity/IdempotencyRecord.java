@@ -0,0 +1,57 @@
+package com.aurumx.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request sent with an Idempotency-Key header
+ * The row is inserted in the same transaction as the request's changes, so it exists
+ * exactly when they were committed. Only hashes of the request and of the state it acted on
+ * are kept, to detect a key reused for a different request.
+ */
+@Entity
+@Table(name = "idempotency_record",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_record_principal_key",
+                columnNames = {"principal", "idempotency_key"}),
+        indexes = @Index(name = "idx_idempotency_record_expires", columnList = "expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency_record_seq")
+    @SequenceGenerator(name = "idempotency_record_seq", sequenceName = "idempotency_record_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false, length = 100)
+    private String principal;
+    
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+    
+    /**
+     * SHA-256 of the operation and its parameters, hex encoded
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    /**
+     * SHA-256 of the state the request acted on (e.g. the redeemed cart lines), null if none
+     */
+    @Column(name = "state_hash", length = 64)
+    private String stateHash;
+    
+    @Column(name = "response_body", columnDefinition = "MEDIUMTEXT")
+    private String responseBody;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
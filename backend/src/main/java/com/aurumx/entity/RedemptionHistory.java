@@ -13,14 +13,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "redemption_history")
+@Table(name = "redemption_history", indexes = {
+        @Index(name = "idx_redemption_history_customer_redeemed", columnList = "customer_id, redeemed_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class RedemptionHistory {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "redemption_history_seq")
+    @SequenceGenerator(name = "redemption_history_seq", sequenceName = "redemption_history_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,6 +43,6 @@ public class RedemptionHistory {
     @Column(nullable = false)
     private RedemptionStatus status = RedemptionStatus.COMPLETED;
     
-    @OneToMany(mappedBy = "redemption", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "redemption", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<RedemptionItem> items = new ArrayList<>();
 }
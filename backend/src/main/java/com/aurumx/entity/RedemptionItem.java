@@ -13,7 +13,8 @@ import lombok.NoArgsConstructor;
 public class RedemptionItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "redemption_item_seq")
+    @SequenceGenerator(name = "redemption_item_seq", sequenceName = "redemption_item_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -22,7 +23,7 @@ public class RedemptionItem {
     @lombok.ToString.Exclude
     private RedemptionHistory redemption;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "reward_item_id", nullable = false)
     @com.fasterxml.jackson.annotation.JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "category"})
     private RewardItem rewardItem;
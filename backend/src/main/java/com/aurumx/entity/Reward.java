@@ -11,14 +11,17 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reward")
+@Table(name = "reward", indexes = {
+        @Index(name = "idx_reward_customer", columnList = "customer_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Reward {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reward_seq")
+    @SequenceGenerator(name = "reward_seq", sequenceName = "reward_seq", allocationSize = 50)
     private Long id;
     
     @OneToOne(fetch = FetchType.LAZY)
@@ -37,4 +40,9 @@ public class Reward {
     
     @Column(name = "last_updated")
     private LocalDateTime lastUpdated;
+    
+    // Bulk UPDATEs on reward bump this too, so entity-based writes detect concurrent changes
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
 }
@@ -0,0 +1,59 @@
+package com.aurumx.entity;
+
+import com.aurumx.enums.AccrualJobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one run of the reward accrual job
+ * lastCardId is only advanced once every card up to it has been processed,
+ * so a crashed run resumes from here without skipping cards.
+ * Each node keeps its own runs, since with accrual partitioning it only walks its own partitions
+ */
+@Entity
+@Table(name = "reward_accrual_checkpoint", indexes = {
+        @Index(name = "idx_reward_accrual_checkpoint_node_status_started", columnList = "node_id, status, started_at"),
+        @Index(name = "idx_reward_accrual_checkpoint_node_started", columnList = "node_id, started_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RewardAccrualCheckpoint {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reward_accrual_checkpoint_seq")
+    @SequenceGenerator(name = "reward_accrual_checkpoint_seq", sequenceName = "reward_accrual_checkpoint_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AccrualJobStatus status = AccrualJobStatus.RUNNING;
+    
+    @Column(name = "last_card_id", nullable = false)
+    private Long lastCardId = 0L;
+    
+    @Column(name = "cards_processed", nullable = false)
+    private Long cardsProcessed = 0L;
+    
+    @Column(name = "chunks_completed", nullable = false)
+    private Long chunksCompleted = 0L;
+    
+    @Column(name = "chunks_failed", nullable = false)
+    private Long chunksFailed = 0L;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -6,7 +6,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "reward_category")
+@Table(name = "reward_category", indexes = {
+        @Index(name = "idx_reward_category_display_order", columnList = "display_order")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -6,7 +6,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "reward_item")
+@Table(name = "reward_item", indexes = {
+        @Index(name = "idx_reward_item_category_available", columnList = "category_id, available"),
+        @Index(name = "idx_reward_item_available", columnList = "available")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -10,17 +10,23 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transaction")
+@Table(name = "transaction", indexes = {
+        // Unprocessed transactions per card, and the DISTINCT card walk of the accrual job
+        @Index(name = "idx_transaction_processed_card", columnList = "processed, credit_card_id"),
+        // Card history sorted by date, including the (transaction_date, id) cursor
+        @Index(name = "idx_transaction_card_date", columnList = "credit_card_id, transaction_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_seq")
+    @SequenceGenerator(name = "transaction_seq", sequenceName = "transaction_seq", allocationSize = 50)
     private Long id;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "credit_card_id", nullable = false)
     @com.fasterxml.jackson.annotation.JsonIgnore
     @lombok.ToString.Exclude
@@ -0,0 +1,7 @@
+package com.aurumx.enums;
+
+public enum AccrualJobStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.aurumx.event;
+
+import java.util.Set;
+
+/**
+ * Published inside the transaction that persisted new card transactions
+ * Listeners that need the rows to be visible should use @TransactionalEventListener (AFTER_COMMIT)
+ * @param creditCardIds cards that received at least one new transaction
+ */
+public record TransactionsRecordedEvent(Set<Long> creditCardIds) {
+}
@@ -3,10 +3,14 @@ package com.aurumx.exception;
 import com.aurumx.constants.ErrorCodes;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -88,6 +92,39 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    /**
+     * 422 when the key was used for a different request, 409 while the first request is still running
+     */
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ex.isInProgress() ? ErrorCodes.IDEMPOTENT_REQUEST_IN_PROGRESS : ErrorCodes.IDEMPOTENCY_KEY_REUSED,
+            ex.getMessage()
+        );
+        return ResponseEntity.status(ex.isInProgress() ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+    
+    @ExceptionHandler({OptimisticLockingFailureException.class, PessimisticLockingFailureException.class})
+    public ResponseEntity<ErrorResponse> handleConcurrentModification(RuntimeException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ErrorCodes.CONCURRENT_MODIFICATION,
+            "The record was modified concurrently, please retry"
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    /**
+     * No database connection became free within spring.datasource.hikari.connection-timeout
+     */
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ErrorResponse> handleConnectionPoolExhausted(RuntimeException ex) {
+        ErrorResponse error = new ErrorResponse(
+            ErrorCodes.SERVICE_BUSY,
+            "The service is busy, please retry"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
         Map<String, String> fieldErrors = new HashMap<>();
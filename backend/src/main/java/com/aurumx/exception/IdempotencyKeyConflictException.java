@@ -0,0 +1,18 @@
+package com.aurumx.exception;
+
+/**
+ * An Idempotency-Key was sent again for a different request, or while the first request is still running
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+    
+    private final boolean inProgress;
+    
+    public IdempotencyKeyConflictException(String message, boolean inProgress) {
+        super(message);
+        this.inProgress = inProgress;
+    }
+    
+    public boolean isInProgress() {
+        return inProgress;
+    }
+}
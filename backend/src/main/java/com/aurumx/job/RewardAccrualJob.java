@@ -0,0 +1,267 @@
+package com.aurumx.job;
+
+import com.aurumx.config.AccrualJobConfig;
+import com.aurumx.dto.response.AccrualJobStatusResponse;
+import com.aurumx.entity.RewardAccrualCheckpoint;
+import com.aurumx.enums.AccrualJobStatus;
+import com.aurumx.repository.RewardAccrualCheckpointRepository;
+import com.aurumx.repository.TransactionRepository;
+import com.aurumx.service.AccrualPartitionService;
+import com.aurumx.service.RewardService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nightly portfolio-wide reward accrual
+ * Walks every card with unprocessed transactions in ascending card id order,
+ * in fixed-size chunks of cards. Each chunk runs in its own database transaction
+ * and reuses RewardService.accrueCard for every card in it.
+ * Chunks of one wave run in parallel on a bounded pool; the checkpoint is
+ * advanced after each wave so a crashed run resumes where it stopped.
+ * With accrual partitioning each node walks only the partitions it owns and keeps its own checkpoint.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RewardAccrualJob {
+    
+    private final RewardService rewardService;
+    private final AccrualPartitionService accrualPartitionService;
+    private final TransactionRepository transactionRepository;
+    private final RewardAccrualCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final AccrualJobConfig accrualJobConfig;
+    
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong cardsProcessed = new AtomicLong();
+    private final AtomicLong chunksCompleted = new AtomicLong();
+    private final AtomicLong chunksFailed = new AtomicLong();
+    
+    // Throughput is measured per node for the current run only
+    private volatile long runStartedNanos;
+    private volatile long cardsAtRunStart;
+    
+    private ExecutorService workers;
+    private ExecutorService launcher;
+    private TransactionTemplate chunkTransaction;
+    
+    @PostConstruct
+    public void init() {
+        int parallelism = Math.max(1, accrualJobConfig.getParallelism());
+        this.workers = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(parallelism),
+                new CustomizableThreadFactory("reward-accrual-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.launcher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("reward-accrual-launcher-"));
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        launcher.shutdownNow();
+        workers.shutdownNow();
+    }
+    
+    @Scheduled(cron = "${aurumx.accrual-job.cron:0 0 2 * * *}")
+    public void runNightly() {
+        if (!accrualJobConfig.isEnabled()) {
+            return;
+        }
+        run();
+    }
+    
+    /**
+     * Start a run in the background unless one is already in progress
+     * @return false if a run is already in progress on this node
+     */
+    public boolean trigger() {
+        if (running.get()) {
+            return false;
+        }
+        launcher.submit(this::run);
+        return true;
+    }
+    
+    /**
+     * Run the job to completion on the calling thread
+     * @return false if a run is already in progress on this node
+     */
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Reward accrual job is already running, skipping");
+            return false;
+        }
+        try {
+            execute();
+        } finally {
+            running.set(false);
+        }
+        return true;
+    }
+    
+    public AccrualJobStatusResponse getStatus() {
+        RewardAccrualCheckpoint checkpoint = checkpointRepository
+                .findFirstByNodeIdOrderByStartedAtDesc(accrualPartitionService.getNodeId())
+                .orElse(null);
+        
+        double cardsPerSecond = 0;
+        if (running.get()) {
+            double elapsedSeconds = (System.nanoTime() - runStartedNanos) / 1_000_000_000.0;
+            if (elapsedSeconds > 0) {
+                cardsPerSecond = (cardsProcessed.get() - cardsAtRunStart) / elapsedSeconds;
+            }
+        }
+        
+        if (checkpoint == null) {
+            return new AccrualJobStatusResponse(null, null, running.get(), 0L, 0L, 0L, 0L,
+                    null, null, null, cardsPerSecond);
+        }
+        
+        return new AccrualJobStatusResponse(
+                checkpoint.getId(),
+                checkpoint.getStatus(),
+                running.get(),
+                checkpoint.getLastCardId(),
+                running.get() ? cardsProcessed.get() : checkpoint.getCardsProcessed(),
+                running.get() ? chunksCompleted.get() : checkpoint.getChunksCompleted(),
+                running.get() ? chunksFailed.get() : checkpoint.getChunksFailed(),
+                checkpoint.getStartedAt(),
+                checkpoint.getUpdatedAt(),
+                checkpoint.getCompletedAt(),
+                cardsPerSecond
+        );
+    }
+    
+    private void execute() {
+        if (accrualPartitionService.isEnabled() && accrualPartitionService.getOwnedPartitions().isEmpty()) {
+            log.info("Node {} owns no accrual partitions, skipping reward accrual run", accrualPartitionService.getNodeId());
+            return;
+        }
+        
+        RewardAccrualCheckpoint checkpoint = checkpointRepository
+                .findFirstByNodeIdAndStatusOrderByStartedAtDesc(accrualPartitionService.getNodeId(), AccrualJobStatus.RUNNING)
+                .orElseGet(this::startNewRun);
+        
+        if (checkpoint.getLastCardId() > 0) {
+            log.info("Resuming reward accrual run {} after card {}", checkpoint.getId(), checkpoint.getLastCardId());
+        }
+        
+        cardsProcessed.set(checkpoint.getCardsProcessed());
+        chunksCompleted.set(checkpoint.getChunksCompleted());
+        chunksFailed.set(checkpoint.getChunksFailed());
+        cardsAtRunStart = checkpoint.getCardsProcessed();
+        runStartedNanos = System.nanoTime();
+        
+        int chunkSize = Math.max(1, accrualJobConfig.getChunkSize());
+        int parallelism = Math.max(1, accrualJobConfig.getParallelism());
+        
+        try {
+            while (true) {
+                List<Long> cardIds = nextCardIds(checkpoint.getLastCardId(), chunkSize * parallelism);
+                if (cardIds.isEmpty()) {
+                    break;
+                }
+                
+                List<Future<Boolean>> wave = new ArrayList<>();
+                for (int from = 0; from < cardIds.size(); from += chunkSize) {
+                    List<Long> chunk = cardIds.subList(from, Math.min(from + chunkSize, cardIds.size()));
+                    wave.add(workers.submit(() -> processChunk(chunk)));
+                }
+                for (Future<Boolean> chunkResult : wave) {
+                    if (chunkResult.get()) {
+                        chunksCompleted.incrementAndGet();
+                    } else {
+                        chunksFailed.incrementAndGet();
+                    }
+                }
+                
+                // Failed chunks are left unprocessed and picked up by the next run
+                checkpoint.setLastCardId(cardIds.get(cardIds.size() - 1));
+                saveProgress(checkpoint);
+            }
+            
+            checkpoint.setStatus(AccrualJobStatus.COMPLETED);
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            saveProgress(checkpoint);
+            
+            log.info("Reward accrual run {} completed. Cards: {}, failed chunks: {}",
+                    checkpoint.getId(), cardsProcessed.get(), chunksFailed.get());
+        } catch (InterruptedException ex) {
+            // Checkpoint stays RUNNING so the next run resumes from it
+            Thread.currentThread().interrupt();
+            log.warn("Reward accrual run {} interrupted after card {}", checkpoint.getId(), checkpoint.getLastCardId());
+        } catch (ExecutionException ex) {
+            log.error("Reward accrual run {} stopped after card {}", checkpoint.getId(), checkpoint.getLastCardId(), ex);
+        }
+    }
+    
+    private boolean processChunk(List<Long> cardIds) {
+        try {
+            chunkTransaction.executeWithoutResult(status -> {
+                // All partitions of the chunk up front and in order, so chunks cannot deadlock each other
+                accrualPartitionService.lockForAccrual(cardIds);
+                cardIds.forEach(rewardService::accrueCard);
+            });
+            cardsProcessed.addAndGet(cardIds.size());
+            return true;
+        } catch (RuntimeException ex) {
+            log.error("Reward accrual chunk of cards {}..{} failed",
+                    cardIds.get(0), cardIds.get(cardIds.size() - 1), ex);
+            return false;
+        }
+    }
+    
+    /**
+     * Next cards to accrue; partitions this node lost during the run are no longer walked
+     * and are left to their new owner
+     */
+    private List<Long> nextCardIds(Long afterCardId, int limit) {
+        if (!accrualPartitionService.isEnabled()) {
+            return transactionRepository.findCardIdsWithUnprocessedAfter(afterCardId, PageRequest.of(0, limit));
+        }
+        Set<Integer> owned = accrualPartitionService.getOwnedPartitions();
+        if (owned.isEmpty()) {
+            return List.of();
+        }
+        return transactionRepository.findCardIdsWithUnprocessedAfterInPartitions(
+                afterCardId, accrualPartitionService.getPartitionCount(), owned, PageRequest.of(0, limit));
+    }
+    
+    private RewardAccrualCheckpoint startNewRun() {
+        RewardAccrualCheckpoint checkpoint = new RewardAccrualCheckpoint();
+        checkpoint.setNodeId(accrualPartitionService.getNodeId());
+        checkpoint.setStatus(AccrualJobStatus.RUNNING);
+        checkpoint.setStartedAt(LocalDateTime.now());
+        checkpoint.setUpdatedAt(checkpoint.getStartedAt());
+        return checkpointRepository.save(checkpoint);
+    }
+    
+    private void saveProgress(RewardAccrualCheckpoint checkpoint) {
+        checkpoint.setCardsProcessed(cardsProcessed.get());
+        checkpoint.setChunksCompleted(chunksCompleted.get());
+        checkpoint.setChunksFailed(chunksFailed.get());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+}
@@ -0,0 +1,178 @@
+package com.aurumx.job;
+
+import com.aurumx.config.AccrualPipelineConfig;
+import com.aurumx.dto.response.AccrualPipelineStatusResponse;
+import com.aurumx.event.TransactionsRecordedEvent;
+import com.aurumx.exception.ResourceNotFoundException;
+import com.aurumx.service.RewardService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Near-real-time reward accrual for newly committed transactions
+ * After a transaction that recorded card transactions commits, the affected cards are queued
+ * and accrued in the background with RewardService.accrueCard. A card that is already waiting
+ * is not queued twice, so a burst of ingest batches for one card costs a single accrual.
+ * Cards are partitioned over the workers by id, so one card is never accrued concurrently by the pipeline.
+ * Queues are bounded: when they stay full the card is dropped and its transactions are left
+ * unprocessed for the nightly RewardAccrualJob.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RewardAccrualPipeline {
+    
+    private final RewardService rewardService;
+    private final AccrualPipelineConfig pipelineConfig;
+    
+    private final Set<Long> pendingCards = ConcurrentHashMap.newKeySet();
+    private final List<BlockingQueue<Long>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    
+    private final AtomicLong cardsEnqueued = new AtomicLong();
+    private final AtomicLong eventsCoalesced = new AtomicLong();
+    private final AtomicLong cardsProcessed = new AtomicLong();
+    private final AtomicLong attemptsRetried = new AtomicLong();
+    private final AtomicLong cardsFailed = new AtomicLong();
+    private final AtomicLong cardsDropped = new AtomicLong();
+    
+    @PostConstruct
+    public void start() {
+        if (!pipelineConfig.isEnabled()) {
+            return;
+        }
+        int workerCount = Math.max(1, pipelineConfig.getWorkers());
+        int capacity = Math.max(1, pipelineConfig.getQueueCapacity() / workerCount);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("reward-accrual-pipeline-");
+        threadFactory.setDaemon(true);
+        
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Long> queue = new ArrayBlockingQueue<>(capacity);
+            queues.add(queue);
+            Thread worker = threadFactory.newThread(() -> work(queue));
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+    
+    @TransactionalEventListener
+    public void onTransactionsRecorded(TransactionsRecordedEvent event) {
+        if (!running) {
+            return;
+        }
+        event.creditCardIds().forEach(this::enqueue);
+    }
+    
+    public AccrualPipelineStatusResponse getStatus() {
+        int queued = queues.stream().mapToInt(BlockingQueue::size).sum();
+        return new AccrualPipelineStatusResponse(
+                running,
+                queued,
+                cardsEnqueued.get(),
+                eventsCoalesced.get(),
+                cardsProcessed.get(),
+                attemptsRetried.get(),
+                cardsFailed.get(),
+                cardsDropped.get()
+        );
+    }
+    
+    private void enqueue(Long cardId) {
+        if (!pendingCards.add(cardId)) {
+            eventsCoalesced.incrementAndGet();
+            return;
+        }
+        
+        BlockingQueue<Long> queue = queues.get((int) Math.floorMod(cardId, (long) queues.size()));
+        boolean accepted;
+        try {
+            // Backpressure: the committing thread waits briefly for room before giving up
+            accepted = queue.offer(cardId, pipelineConfig.getOfferTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        
+        if (accepted) {
+            cardsEnqueued.incrementAndGet();
+        } else {
+            pendingCards.remove(cardId);
+            if (cardsDropped.incrementAndGet() % 1000 == 1) {
+                log.warn("Accrual pipeline is full, card {} left for the nightly job ({} dropped so far)",
+                        cardId, cardsDropped.get());
+            }
+        }
+    }
+    
+    private void work(BlockingQueue<Long> queue) {
+        while (running) {
+            Long cardId;
+            try {
+                cardId = queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // Released before accruing, so transactions committed from now on queue the card again
+            pendingCards.remove(cardId);
+            accrue(cardId);
+        }
+    }
+    
+    private void accrue(Long cardId) {
+        int maxAttempts = Math.max(1, pipelineConfig.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rewardService.accrueCard(cardId);
+                cardsProcessed.incrementAndGet();
+                return;
+            } catch (ResourceNotFoundException ex) {
+                // Card removed since its transactions were recorded, nothing left to accrue
+                return;
+            } catch (RuntimeException ex) {
+                // Usually a concurrent accrual of the same card (manual endpoint or nightly job)
+                if (attempt >= maxAttempts) {
+                    cardsFailed.incrementAndGet();
+                    log.warn("Accrual for card {} failed after {} attempts, left for the nightly job", cardId, attempt, ex);
+                    return;
+                }
+                attemptsRetried.incrementAndGet();
+                if (!backOff(attempt)) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(pipelineConfig.getRetryBackoffMs() << (attempt - 1));
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.aurumx.logging;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Warnings that can repeat on every request, limited per key
+ * At most maxPerInterval messages of one key are written per interval; the first message of the
+ * next interval reports how many were suppressed. Keys must come from a small fixed set.
+ */
+public class RateLimitedLog {
+    
+    private final Logger logger;
+    private final long intervalNanos;
+    private final int maxPerInterval;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    
+    public RateLimitedLog(Logger logger, Duration interval, int maxPerInterval) {
+        this.logger = logger;
+        this.intervalNanos = interval.toNanos();
+        this.maxPerInterval = maxPerInterval;
+    }
+    
+    public void warn(String key, String message) {
+        if (!logger.isWarnEnabled()) {
+            return;
+        }
+        long suppressed = windows.computeIfAbsent(key, k -> new Window()).acquire(System.nanoTime());
+        if (suppressed == 0) {
+            logger.warn(message);
+        } else if (suppressed > 0) {
+            logger.warn("{} ({} similar messages suppressed)", message, suppressed);
+        }
+    }
+    
+    private final class Window {
+        private long startNanos;
+        private int written;
+        private long suppressed;
+        private boolean started;
+        
+        /**
+         * @return -1 if the message must be dropped, otherwise the number of messages dropped since the last one written
+         */
+        synchronized long acquire(long nowNanos) {
+            if (!started || nowNanos - startNanos >= intervalNanos) {
+                started = true;
+                startNanos = nowNanos;
+                written = 0;
+            }
+            if (written >= maxPerInterval) {
+                suppressed++;
+                return -1;
+            }
+            written++;
+            long dropped = suppressed;
+            suppressed = 0;
+            return dropped;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.aurumx.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in every sampleRate events of the loggers under loggerPrefix up to maxLevel
+ * Events above maxLevel (by default WARN and ERROR) are never sampled.
+ * Configured per logger in logback-spring.xml:
+ *
+ *   <turboFilter class="com.aurumx.logging.SamplingTurboFilter">
+ *       <loggerPrefix>com.aurumx.service.RewardService</loggerPrefix>
+ *       <sampleRate>100</sampleRate>
+ *   </turboFilter>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+    
+    private String loggerPrefix = "";
+    private Level maxLevel = Level.INFO;
+    private int sampleRate = 1;
+    private final AtomicLong events = new AtomicLong();
+    
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (sampleRate <= 1 || level == null || level.levelInt > maxLevel.levelInt) {
+            return FilterReply.NEUTRAL;
+        }
+        // Events the logger would reject anyway must not consume a sample
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel()) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return events.getAndIncrement() % sampleRate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+    
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+    
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+    }
+    
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,97 @@
+package com.aurumx.metrics;
+
+import com.aurumx.util.Points;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Business counters of the reward flows
+ * Accruals and redemptions are counted after their transaction commits, so rolled back
+ * or retried work is not counted twice.
+ */
+@Component
+public class AurumxMetrics {
+    
+    private final MeterRegistry meterRegistry;
+    private final Counter transactionsProcessed;
+    private final Counter pointsAccrued;
+    private final Counter redemptions;
+    private final Counter pointsRedeemed;
+    private final Counter insufficientBalance;
+    
+    public AurumxMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.transactionsProcessed = Counter.builder("aurumx.rewards.transactions.processed")
+                .description("Card transactions converted into reward points")
+                .register(meterRegistry);
+        this.pointsAccrued = Counter.builder("aurumx.rewards.points.accrued")
+                .description("Reward points credited to cards")
+                .baseUnit("points")
+                .register(meterRegistry);
+        this.redemptions = Counter.builder("aurumx.redemptions")
+                .description("Completed cart redemptions")
+                .register(meterRegistry);
+        this.pointsRedeemed = Counter.builder("aurumx.redemptions.points")
+                .description("Reward points spent on redemptions")
+                .baseUnit("points")
+                .register(meterRegistry);
+        this.insufficientBalance = Counter.builder("aurumx.redemptions.rejected")
+                .description("Redemptions rejected because the card balance was too low")
+                .tag("reason", "insufficient_balance")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * @param points accrued points in hundredths, see {@link Points}
+     */
+    public void transactionsProcessed(long count, long points) {
+        afterCommit(() -> {
+            transactionsProcessed.increment(count);
+            pointsAccrued.increment(Points.toBigDecimal(points).doubleValue());
+        });
+    }
+    
+    /**
+     * @param points redeemed points in hundredths, see {@link Points}
+     */
+    public void redeemed(long points) {
+        afterCommit(() -> {
+            redemptions.increment();
+            pointsRedeemed.increment(Points.toBigDecimal(points).doubleValue());
+        });
+    }
+    
+    public void insufficientBalance() {
+        insufficientBalance.increment();
+    }
+    
+    /**
+     * A retried request answered from its stored response instead of executing again
+     */
+    public void idempotentReplay() {
+        meterRegistry.counter("aurumx.idempotency.replays").increment();
+    }
+    
+    /**
+     * @param reason short, fixed reason such as expired or malformed
+     */
+    public void jwtRejected(String reason) {
+        meterRegistry.counter("aurumx.jwt.rejected", "reason", reason).increment();
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.aurumx.metrics;
+
+/**
+ * Hibernate work done on behalf of the current HTTP request
+ * Bound to the request thread by RequestStatisticsFilter; work on other threads (jobs, pipeline) is not counted.
+ */
+public final class RequestStatistics {
+    
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+    
+    private int statements;
+    private int entityLoads;
+    
+    private RequestStatistics() {
+    }
+    
+    static RequestStatistics start() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+    
+    static void stop() {
+        CURRENT.remove();
+    }
+    
+    static void statementsExecuted(int count) {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements += count;
+        }
+    }
+    
+    static void entityLoaded() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entityLoads++;
+        }
+    }
+    
+    int getStatements() {
+        return statements;
+    }
+    
+    int getEntityLoads() {
+        return entityLoads;
+    }
+}
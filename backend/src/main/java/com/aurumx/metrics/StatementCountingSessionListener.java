@@ -0,0 +1,20 @@
+package com.aurumx.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Registered for every Hibernate session through hibernate.session.events.auto
+ * A JDBC batch counts as one round trip.
+ */
+public class StatementCountingSessionListener implements SessionEventListener {
+    
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestStatistics.statementsExecuted(1);
+    }
+    
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestStatistics.statementsExecuted(1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.aurumx.repository;
+
+import com.aurumx.entity.AccrualNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AccrualNodeRepository extends JpaRepository<AccrualNode, String> {
+    
+    @Modifying
+    @Query("UPDATE AccrualNode n SET n.heartbeatAt = :now WHERE n.nodeId = :nodeId")
+    int heartbeat(@Param("nodeId") String nodeId, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT n.nodeId FROM AccrualNode n WHERE n.heartbeatAt > :since ORDER BY n.nodeId")
+    List<String> findLiveNodeIds(@Param("since") LocalDateTime since);
+}
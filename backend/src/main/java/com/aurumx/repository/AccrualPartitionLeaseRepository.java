@@ -0,0 +1,53 @@
+package com.aurumx.repository;
+
+import com.aurumx.entity.AccrualPartitionLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccrualPartitionLeaseRepository extends JpaRepository<AccrualPartitionLease, Integer> {
+    
+    /**
+     * Renew the given partitions if this node holds them, take them if they are free or expired
+     */
+    @Modifying
+    @Query("UPDATE AccrualPartitionLease l SET l.owner = :nodeId, l.expiresAt = :expiresAt " +
+           "WHERE l.partitionId IN :partitions " +
+           "AND (l.owner = :nodeId OR l.owner IS NULL OR l.expiresAt < :now)")
+    int acquire(@Param("nodeId") String nodeId,
+                @Param("partitions") Collection<Integer> partitions,
+                @Param("now") LocalDateTime now,
+                @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("UPDATE AccrualPartitionLease l SET l.owner = NULL, l.expiresAt = NULL " +
+           "WHERE l.owner = :nodeId AND l.partitionId IN :partitions")
+    int release(@Param("nodeId") String nodeId, @Param("partitions") Collection<Integer> partitions);
+    
+    @Modifying
+    @Query("UPDATE AccrualPartitionLease l SET l.owner = NULL, l.expiresAt = NULL WHERE l.owner = :nodeId")
+    int releaseAll(@Param("nodeId") String nodeId);
+    
+    @Query("SELECT l.partitionId FROM AccrualPartitionLease l " +
+           "WHERE l.owner = :nodeId AND l.expiresAt > :now ORDER BY l.partitionId")
+    List<Integer> findOwned(@Param("nodeId") String nodeId, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT l.partitionId FROM AccrualPartitionLease l")
+    List<Integer> findAllPartitionIds();
+    
+    /**
+     * Row locks on the given partitions until the transaction ends, taken in id order to avoid deadlocks
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM AccrualPartitionLease l WHERE l.partitionId IN :partitions ORDER BY l.partitionId")
+    List<AccrualPartitionLease> lockPartitions(@Param("partitions") Collection<Integer> partitions);
+}
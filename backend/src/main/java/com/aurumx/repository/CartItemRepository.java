@@ -1,13 +1,47 @@
 package com.aurumx.repository;
 
 import com.aurumx.entity.CartItem;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+    
+    /**
+     * Cart lines with their reward items, which pricing and redemption read for every line
+     */
+    @EntityGraph(attributePaths = "rewardItem")
     List<CartItem> findByCustomerId(Long customerId);
+    
     void deleteByCustomerId(Long customerId);
+    
+    interface CartLineRow {
+        Long getId();
+        Long getRewardItemId();
+        Integer getQuantity();
+        LocalDateTime getAddedAt();
+    }
+    
+    /**
+     * Cart lines without their reward items, used to load a cart into the CartStore
+     */
+    @Query("SELECT ci.id AS id, ci.rewardItem.id AS rewardItemId, ci.quantity AS quantity, ci.addedAt AS addedAt " +
+           "FROM CartItem ci WHERE ci.customer.id = :customerId ORDER BY ci.id")
+    List<CartLineRow> findLinesByCustomerId(@Param("customerId") Long customerId);
+    
+    @Query("SELECT ci.customer.id FROM CartItem ci WHERE ci.id = :id")
+    Optional<Long> findCustomerIdById(@Param("id") Long id);
+    
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.id IN :ids")
+    int deleteLines(@Param("ids") Collection<Long> ids);
 }
@@ -1,13 +1,65 @@
 package com.aurumx.repository;
 
 import com.aurumx.entity.CreditCard;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CreditCardRepository extends JpaRepository<CreditCard, Long> {
-    List<CreditCard> findByCustomerId(Long customerId);
+    /**
+     * Filters on the customer_id column instead of joining customer
+     */
+    @Query("SELECT cc FROM CreditCard cc WHERE cc.customer.id = :customerId")
+    List<CreditCard> findByCustomerId(@Param("customerId") Long customerId);
+    
+    /**
+     * Card with its customer in one select, for accrual which needs the customer type
+     */
+    @EntityGraph(attributePaths = "customer")
+    Optional<CreditCard> findWithCustomerById(Long id);
+    
     boolean existsByCardNumber(String cardNumber);
+    
+    interface CardPoints {
+        Long getCreditCardId();
+        String getCardNumber();
+        BigDecimal getPoints();
+    }
+    
+    /**
+     * Cards of a customer with the balance of their reward account, null if none exists yet
+     */
+    @Query("SELECT cc.id AS creditCardId, cc.cardNumber AS cardNumber, r.pointsBalance AS points " +
+           "FROM CreditCard cc LEFT JOIN Reward r ON r.creditCard = cc " +
+           "WHERE cc.customer.id = :customerId " +
+           "ORDER BY cc.id")
+    List<CardPoints> findCardPointsByCustomerId(@Param("customerId") Long customerId);
+    
+    @Query("SELECT cc.id FROM CreditCard cc WHERE cc.customer.id = :customerId")
+    List<Long> findIdsByCustomerId(@Param("customerId") Long customerId);
+    
+    @Query("SELECT cc.id FROM CreditCard cc WHERE cc.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
+    interface CardNumberRef {
+        Long getId();
+        Long getCustomerId();
+        String getCardNumber();
+    }
+    
+    /**
+     * Keyset page of card numbers, used to build the customer search index
+     */
+    @Query("SELECT cc.id AS id, cc.customer.id AS customerId, cc.cardNumber AS cardNumber " +
+           "FROM CreditCard cc WHERE cc.id > :afterId ORDER BY cc.id")
+    List<CardNumberRef> findCardNumbersAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
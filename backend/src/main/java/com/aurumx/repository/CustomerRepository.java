@@ -1,13 +1,16 @@
 package com.aurumx.repository;
 
 import com.aurumx.entity.Customer;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,10 +18,21 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     
     Page<Customer> findByDeletedFalse(Pageable pageable);
     
+    /**
+     * Keyset pagination by id; the limit comes from the Pageable, no count query is run
+     */
+    List<Customer> findByDeletedFalseAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable limit);
+    
     Optional<Customer> findByIdAndDeletedFalse(Long id);
     
+    /**
+     * Matches name, email or phone; the same fields CustomerSearchIndex covers
+     * Only used until the index has been loaded
+     */
     @Query("SELECT c FROM Customer c WHERE c.deleted = false AND " +
-           "(LOWER(c.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
+           "(LOWER(c.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+           "OR LOWER(c.email) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+           "OR c.phone LIKE CONCAT('%', :searchTerm, '%'))")
     Page<Customer> searchByName(@Param("searchTerm") String searchTerm, Pageable pageable);
     
     @Query("SELECT DISTINCT c FROM Customer c " +
@@ -27,4 +41,25 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Page<Customer> searchByCardNumber(@Param("cardNumber") String cardNumber, Pageable pageable);
     
     boolean existsByEmail(String email);
+    
+    /**
+     * Row lock on the customer until the transaction ends; serialises creation of its reward summary
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.id = :id")
+    Optional<Customer> lockById(@Param("id") Long id);
+    
+    interface SearchFields {
+        Long getId();
+        String getName();
+        String getEmail();
+        String getPhone();
+    }
+    
+    /**
+     * Keyset page of active customers, used to build the customer search index
+     */
+    @Query("SELECT c.id AS id, c.name AS name, c.email AS email, c.phone AS phone " +
+           "FROM Customer c WHERE c.deleted = false AND c.id > :afterId ORDER BY c.id")
+    List<SearchFields> findSearchFieldsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,46 @@
+package com.aurumx.repository;
+
+import com.aurumx.entity.CustomerRewardSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerRewardSummaryRepository extends JpaRepository<CustomerRewardSummary, Long> {
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CustomerRewardSummary s " +
+           "SET s.pointsBalance = s.pointsBalance + :points, " +
+           "s.lifetimeEarned = s.lifetimeEarned + :points, " +
+           "s.lastUpdated = :updatedAt " +
+           "WHERE s.customerId = :customerId")
+    int addAccrual(@Param("customerId") Long customerId,
+                   @Param("points") BigDecimal points,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE CustomerRewardSummary s " +
+           "SET s.pointsBalance = s.pointsBalance - :points, " +
+           "s.lastUpdated = :updatedAt " +
+           "WHERE s.customerId = :customerId")
+    int subtractRedemption(@Param("customerId") Long customerId,
+                           @Param("points") BigDecimal points,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * Row locks on the given summaries until the transaction ends, taken in id order to avoid deadlocks
+     * A locking read, so it returns the latest committed rows whatever the isolation level
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CustomerRewardSummary s WHERE s.customerId IN :customerIds ORDER BY s.customerId")
+    List<CustomerRewardSummary> lockAllById(@Param("customerIds") Collection<Long> customerIds);
+}
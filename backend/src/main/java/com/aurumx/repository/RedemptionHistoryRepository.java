@@ -1,12 +1,22 @@
 package com.aurumx.repository;
 
 import com.aurumx.entity.RedemptionHistory;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
 public interface RedemptionHistoryRepository extends JpaRepository<RedemptionHistory, Long> {
-    List<RedemptionHistory> findByCustomerIdOrderByRedeemedAtDesc(Long customerId);
+    
+    /**
+     * History with its items and their reward items in a single select
+     * Filters on the customer_id column, so idx_redemption_history_customer_redeemed serves it
+     */
+    @EntityGraph(attributePaths = {"items", "items.rewardItem"})
+    @Query("SELECT rh FROM RedemptionHistory rh WHERE rh.customer.id = :customerId ORDER BY rh.redeemedAt DESC")
+    List<RedemptionHistory> findByCustomerIdOrderByRedeemedAtDesc(@Param("customerId") Long customerId);
 }
@@ -0,0 +1,14 @@
+package com.aurumx.repository;
+
+import com.aurumx.entity.RewardAccrualCheckpoint;
+import com.aurumx.enums.AccrualJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RewardAccrualCheckpointRepository extends JpaRepository<RewardAccrualCheckpoint, Long> {
+    Optional<RewardAccrualCheckpoint> findFirstByNodeIdAndStatusOrderByStartedAtDesc(String nodeId, AccrualJobStatus status);
+    Optional<RewardAccrualCheckpoint> findFirstByNodeIdOrderByStartedAtDesc(String nodeId);
+}
@@ -2,6 +2,7 @@ package com.aurumx.repository;
 
 import com.aurumx.entity.RewardItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +12,7 @@ public interface RewardItemRepository extends JpaRepository<RewardItem, Long> {
     List<RewardItem> findByCategoryId(Long categoryId);
     List<RewardItem> findByCategoryIdAndAvailableTrue(Long categoryId);
     List<RewardItem> findByAvailableTrue();
+    
+    @Query("SELECT i FROM RewardItem i JOIN FETCH i.category WHERE i.available = true ORDER BY i.id")
+    List<RewardItem> findAvailableWithCategory();
 }
@@ -1,14 +1,79 @@
 package com.aurumx.repository;
 
 import com.aurumx.entity.Reward;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
 @Repository
 public interface RewardRepository extends JpaRepository<Reward, Long> {
-    Optional<Reward> findByCreditCardId(Long creditCardId);
+    /**
+     * Filters on the credit_card_id column; the derived query left joins credit_card and filters on
+     * its id, which the planner may answer by scanning reward
+     */
+    @Query("SELECT r FROM Reward r WHERE r.creditCard.id = :creditCardId")
+    Optional<Reward> findByCreditCardId(@Param("creditCardId") Long creditCardId);
+    
+    /**
+     * Reward account with its card, for checks against the card's owner
+     */
+    @EntityGraph(attributePaths = "creditCard")
+    @Query("SELECT r FROM Reward r WHERE r.creditCard.id = :creditCardId")
+    Optional<Reward> findWithCardByCreditCardId(@Param("creditCardId") Long creditCardId);
+    
     List<Reward> findByCreditCard_CustomerId(Long customerId);
+    
+    /**
+     * Debit only if the balance covers it, as one atomic statement
+     * @return 0 if the balance is insufficient (or the account does not exist)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Reward r " +
+           "SET r.pointsBalance = r.pointsBalance - :points, " +
+           "r.lastUpdated = :updatedAt, " +
+           "r.version = r.version + 1 " +
+           "WHERE r.creditCard.id = :creditCardId AND r.pointsBalance >= :points")
+    int debitPoints(@Param("creditCardId") Long creditCardId,
+                    @Param("points") BigDecimal points,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Query("SELECT r.pointsBalance FROM Reward r WHERE r.creditCard.id = :creditCardId")
+    Optional<BigDecimal> findPointsBalanceByCreditCardId(@Param("creditCardId") Long creditCardId);
+    
+    interface CustomerBalance {
+        Long getCustomerId();
+        BigDecimal getBalance();
+        BigDecimal getLifetimeEarned();
+    }
+    
+    /**
+     * Total points balance per customer for a page of customers in one grouped query
+     * Customers without any reward account are absent from the result
+     */
+    @Query("SELECT cc.customer.id AS customerId, SUM(r.pointsBalance) AS balance, " +
+           "SUM(r.lifetimeEarned) AS lifetimeEarned " +
+           "FROM Reward r JOIN r.creditCard cc " +
+           "WHERE cc.customer.id IN :customerIds " +
+           "GROUP BY cc.customer.id")
+    List<CustomerBalance> sumBalancesByCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Reward r " +
+           "SET r.pointsBalance = r.pointsBalance + :points, " +
+           "r.lifetimeEarned = r.lifetimeEarned + :points, " +
+           "r.lastUpdated = :updatedAt, " +
+           "r.version = r.version + 1 " +
+           "WHERE r.creditCard.id = :creditCardId")
+    int creditPoints(@Param("creditCardId") Long creditCardId,
+                     @Param("points") BigDecimal points,
+                     @Param("updatedAt") LocalDateTime updatedAt);
 }
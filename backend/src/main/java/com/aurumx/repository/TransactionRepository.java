@@ -1,11 +1,16 @@
 package com.aurumx.repository;
 
+import com.aurumx.dto.response.TransactionResponse;
 import com.aurumx.entity.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
@@ -14,13 +19,83 @@ import org.springframework.data.domain.Pageable;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
-    Page<Transaction> findByCreditCardId(Long creditCardId, Pageable pageable);
+    String HISTORY_SELECT = "SELECT new com.aurumx.dto.response.TransactionResponse(" +
+            "t.id, t.creditCard.id, t.amount, t.merchant, t.transactionDate, t.processed, t.rewardPoints, t.createdAt) " +
+            "FROM Transaction t ";
+    
+    /**
+     * Offset page of a card's history as flat rows; t.creditCard.id is read from the foreign key, no join
+     */
+    @Query(value = HISTORY_SELECT + "WHERE t.creditCard.id = :creditCardId",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.creditCard.id = :creditCardId")
+    Page<TransactionResponse> findHistoryByCreditCardId(@Param("creditCardId") Long creditCardId, Pageable pageable);
+    
+    /**
+     * Keyset pagination over a card's history, newest first; the limit comes from the Pageable
+     */
+    @Query(HISTORY_SELECT + "WHERE t.creditCard.id = :creditCardId " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findLatestByCreditCardId(@Param("creditCardId") Long creditCardId, Pageable limit);
+    
+    @Query(HISTORY_SELECT + "WHERE t.creditCard.id = :creditCardId " +
+           "AND (t.transactionDate < :transactionDate " +
+           "OR (t.transactionDate = :transactionDate AND t.id < :id)) " +
+           "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionResponse> findByCreditCardIdBefore(@Param("creditCardId") Long creditCardId,
+                                                       @Param("transactionDate") LocalDateTime transactionDate,
+                                                       @Param("id") Long id,
+                                                       Pageable limit);
     List<Transaction> findByCreditCardId(Long creditCardId); // Keep for compatibility if needed
     
+    /**
+     * Fetches the cards with the transactions, since accrual groups by card
+     */
     @Query("SELECT t FROM Transaction t " +
-           "JOIN t.creditCard cc " +
+           "JOIN FETCH t.creditCard cc " +
            "WHERE cc.customer.id = :customerId AND t.processed = false")
     List<Transaction> findUnprocessedByCustomerId(@Param("customerId") Long customerId);
 
     List<Transaction> findByCreditCardIdAndProcessedFalse(Long creditCardId);
+    
+    @Query("SELECT DISTINCT t.creditCard.id FROM Transaction t " +
+           "WHERE t.processed = false AND t.creditCard.id > :afterCardId " +
+           "ORDER BY t.creditCard.id")
+    List<Long> findCardIdsWithUnprocessedAfter(@Param("afterCardId") Long afterCardId, Pageable pageable);
+    
+    /**
+     * Same walk restricted to the accrual partitions owned by this node
+     */
+    @Query("SELECT DISTINCT t.creditCard.id FROM Transaction t " +
+           "WHERE t.processed = false AND t.creditCard.id > :afterCardId " +
+           "AND MOD(t.creditCard.id, :partitions) IN :owned " +
+           "ORDER BY t.creditCard.id")
+    List<Long> findCardIdsWithUnprocessedAfterInPartitions(@Param("afterCardId") Long afterCardId,
+                                                           @Param("partitions") int partitions,
+                                                           @Param("owned") Collection<Integer> owned,
+                                                           Pageable pageable);
+    
+    /**
+     * Snapshot of the unprocessed transactions of a card used by bulk accrual.
+     * maxId bounds the following UPDATE so rows inserted afterwards are left for the next run.
+     */
+    interface AccrualWindow {
+        Long getTransactionCount();
+        Long getMaxId();
+        BigDecimal getTotalPoints();
+    }
+    
+    @Query("SELECT COUNT(t) AS transactionCount, MAX(t.id) AS maxId, " +
+           "SUM(ROUND(t.amount * :percentage / 100, 2)) AS totalPoints " +
+           "FROM Transaction t " +
+           "WHERE t.creditCard.id = :creditCardId AND t.processed = false")
+    AccrualWindow findAccrualWindow(@Param("creditCardId") Long creditCardId,
+                                    @Param("percentage") BigDecimal percentage);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Transaction t " +
+           "SET t.processed = true, t.rewardPoints = ROUND(t.amount * :percentage / 100, 2) " +
+           "WHERE t.creditCard.id = :creditCardId AND t.processed = false AND t.id <= :maxId")
+    int markProcessedUpTo(@Param("creditCardId") Long creditCardId,
+                          @Param("maxId") Long maxId,
+                          @Param("percentage") BigDecimal percentage);
 }
@@ -23,6 +23,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsServiceImpl userDetailsService;
+    private final UserDetailsCache userDetailsCache;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -31,9 +32,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            String username = StringUtils.hasText(jwt) ? tokenProvider.validateAndGetUsername(jwt) : null;
+            
+            if (username != null) {
+                UserDetails userDetails = userDetailsCache.get(username, userDetailsService::loadUserByUsername);
                 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
@@ -1,6 +1,8 @@
 package com.aurumx.security;
 
 import com.aurumx.config.JwtConfig;
+import com.aurumx.logging.RateLimitedLog;
+import com.aurumx.metrics.AurumxMetrics;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -12,6 +14,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
 
 @Component
@@ -20,11 +23,18 @@ import java.util.Date;
 public class JwtTokenProvider {
     
     private final JwtConfig jwtConfig;
+    private final AurumxMetrics metrics;
     private SecretKey key;
+    private JwtParser parser; // Immutable and thread-safe, built once
+    private RateLimitedLog rejectionLog; // Bad tokens arrive per request, often in bursts from one client
     
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        this.rejectionLog = new RateLimitedLog(log, Duration.ofMinutes(1), jwtConfig.getInvalidTokenLogLimitPerMinute());
     }
     
     public String generateToken(Authentication authentication) {
@@ -41,9 +51,7 @@ public class JwtTokenProvider {
     }
     
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(key)
-                .build()
+        Claims claims = parser
                 .parseSignedClaims(token)
                 .getPayload();
         
@@ -51,23 +59,38 @@ public class JwtTokenProvider {
     }
     
     public boolean validateToken(String authToken) {
+        return validateAndGetUsername(authToken) != null;
+    }
+    
+    /**
+     * Verify the token and read its subject with a single parse
+     * @return the username, or null if the token is invalid
+     */
+    public String validateAndGetUsername(String authToken) {
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
-        } catch (SecurityException ex) {
-            log.error("Invalid JWT signature");
+            return parser
+                    .parseSignedClaims(authToken)
+                    .getPayload()
+                    .getSubject();
+        } catch (io.jsonwebtoken.security.SecurityException ex) {
+            // Wrong signature or key; java.lang.SecurityException would not match these
+            rejected("signature", "Invalid JWT signature");
         } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token");
+            rejected("malformed", "Invalid JWT token");
         } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token");
+            rejected("expired", "Expired JWT token");
         } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token");
+            rejected("unsupported", "Unsupported JWT token");
+        } catch (JwtException ex) {
+            rejected("invalid", "Invalid JWT token");
         } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty");
+            rejected("empty", "JWT claims string is empty");
         }
-        return false;
+        return null;
+    }
+    
+    private void rejected(String reason, String message) {
+        rejectionLog.warn(reason, message);
+        metrics.jwtRejected(reason);
     }
 }
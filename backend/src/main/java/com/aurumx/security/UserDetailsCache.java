@@ -0,0 +1,77 @@
+package com.aurumx.security;
+
+import com.aurumx.config.UserCacheConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded TTL cache of principals used by JwtAuthenticationFilter
+ * so an authenticated request does not query ces_user every time.
+ * Only the JWT filter reads through it; login still goes to the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserDetailsCache {
+    
+    private final UserCacheConfig userCacheConfig;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    private record Entry(UserDetails userDetails, long expiresAtMillis) {
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+    
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && !entry.isExpired(now)) {
+            return entry.userDetails();
+        }
+        
+        UserDetails userDetails = loader.apply(username);
+        if (entries.size() >= userCacheConfig.getMaxSize()) {
+            makeRoom(now);
+        }
+        entries.put(username, new Entry(userDetails, now + userCacheConfig.getTtlSeconds() * 1000));
+        return userDetails;
+    }
+    
+    /**
+     * Evict a user now and again once the surrounding transaction commits,
+     * so a concurrent request cannot re-cache the pre-commit state
+     */
+    public void evict(String username) {
+        entries.remove(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(username);
+                }
+            });
+        }
+    }
+    
+    public void clear() {
+        entries.clear();
+    }
+    
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        
+        // Still full: drop the entries closest to expiry
+        while (entries.size() >= userCacheConfig.getMaxSize()) {
+            entries.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().expiresAtMillis(), b.getValue().expiresAtMillis()))
+                    .ifPresentOrElse(oldest -> entries.remove(oldest.getKey()), entries::clear);
+        }
+    }
+}
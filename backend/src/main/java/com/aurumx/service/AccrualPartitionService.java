@@ -0,0 +1,274 @@
+package com.aurumx.service;
+
+import com.aurumx.config.AccrualPartitionConfig;
+import com.aurumx.dto.response.AccrualPartitionStatusResponse;
+import com.aurumx.entity.AccrualNode;
+import com.aurumx.entity.AccrualPartitionLease;
+import com.aurumx.repository.AccrualNodeRepository;
+import com.aurumx.repository.AccrualPartitionLeaseRepository;
+import com.aurumx.repository.CreditCardRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Card-partitioned ownership of reward accrual across backend nodes
+ * A card belongs to partition (card id modulo partitions). Each node heartbeats into accrual_node
+ * and on every tick computes its share of the partitions by rendezvous hashing over the live nodes,
+ * releases leases outside that share and takes or renews the ones inside it. When a node joins or
+ * leaves, only the partitions whose winner changes move.
+ *
+ * Ownership decides where background accrual runs (the nightly job walks only owned partitions).
+ * Exclusivity comes from lockForAccrual: every accrual first locks the lease rows of its cards'
+ * partitions, so a card is never accrued by two nodes at once, whichever node serves the request,
+ * and a takeover waits for in-flight accruals of the partition to commit.
+ */
+@Service
+@Slf4j
+public class AccrualPartitionService {
+    
+    private final AccrualPartitionLeaseRepository leaseRepository;
+    private final AccrualNodeRepository nodeRepository;
+    private final CreditCardRepository creditCardRepository;
+    private final AccrualPartitionConfig partitionConfig;
+    private final TransactionTemplate leaseTransaction;
+    
+    private volatile Set<Integer> ownedPartitions = Set.of();
+    private volatile long ownedUntilMillis;
+    private volatile List<String> liveNodes = List.of();
+    
+    public AccrualPartitionService(AccrualPartitionLeaseRepository leaseRepository,
+                                   AccrualNodeRepository nodeRepository,
+                                   CreditCardRepository creditCardRepository,
+                                   AccrualPartitionConfig partitionConfig,
+                                   PlatformTransactionManager transactionManager) {
+        this.leaseRepository = leaseRepository;
+        this.nodeRepository = nodeRepository;
+        this.creditCardRepository = creditCardRepository;
+        this.partitionConfig = partitionConfig;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!partitionConfig.isEnabled()) {
+            return;
+        }
+        seedPartitions();
+        renewLeases();
+    }
+    
+    /**
+     * Leave gracefully: free this node's partitions now instead of after leaseTtlSeconds
+     */
+    @PreDestroy
+    public void stop() {
+        if (!partitionConfig.isEnabled()) {
+            return;
+        }
+        ownedPartitions = Set.of();
+        try {
+            leaseTransaction.executeWithoutResult(status -> {
+                leaseRepository.releaseAll(partitionConfig.getNodeId());
+                nodeRepository.deleteById(partitionConfig.getNodeId());
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Could not release accrual partitions of node {}", partitionConfig.getNodeId(), ex);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${aurumx.accrual-partitions.renew-interval-ms:10000}",
+               initialDelayString = "${aurumx.accrual-partitions.renew-interval-ms:10000}")
+    public void renewLeases() {
+        if (!partitionConfig.isEnabled()) {
+            return;
+        }
+        // Measured before renewing, so the local view never outlives the lease in the database
+        long validUntil = System.currentTimeMillis() + partitionConfig.getLeaseTtlSeconds() * 1000;
+        try {
+            List<Integer> owned = leaseTransaction.execute(status -> rebalance());
+            Set<Integer> previous = ownedPartitions;
+            ownedPartitions = Set.copyOf(owned);
+            ownedUntilMillis = validUntil;
+            if (!ownedPartitions.equals(previous)) {
+                log.info("Node {} owns {} of {} accrual partitions, live nodes: {}",
+                        partitionConfig.getNodeId(), owned.size(), partitionConfig.getPartitions(), liveNodes);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Renewing accrual partition leases of node {} failed", partitionConfig.getNodeId(), ex);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return partitionConfig.isEnabled();
+    }
+    
+    public String getNodeId() {
+        return partitionConfig.getNodeId();
+    }
+    
+    public int getPartitionCount() {
+        return partitionConfig.getPartitions();
+    }
+    
+    public int partitionOf(long cardId) {
+        return (int) Math.floorMod(cardId, (long) partitionConfig.getPartitions());
+    }
+    
+    /**
+     * Partitions whose lease this node currently holds; empty once the leases may have expired
+     */
+    public Set<Integer> getOwnedPartitions() {
+        return System.currentTimeMillis() < ownedUntilMillis ? ownedPartitions : Set.of();
+    }
+    
+    /**
+     * Lock the partitions of the given cards until the current transaction ends
+     * Must run before the transaction reads the cards' transactions or rewards, in a
+     * READ COMMITTED transaction, so those reads see any accrual that committed while waiting
+     */
+    public void lockForAccrual(Collection<Long> cardIds) {
+        if (!partitionConfig.isEnabled() || cardIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> locked = lockedInCurrentTransaction();
+        Set<Integer> partitions = new TreeSet<>();
+        for (Long cardId : cardIds) {
+            int partition = partitionOf(cardId);
+            if (!locked.contains(partition)) {
+                partitions.add(partition);
+            }
+        }
+        if (!partitions.isEmpty()) {
+            leaseRepository.lockPartitions(partitions);
+            locked.addAll(partitions);
+        }
+    }
+    
+    public void lockCustomerForAccrual(Long customerId) {
+        if (partitionConfig.isEnabled()) {
+            lockForAccrual(creditCardRepository.findIdsByCustomerId(customerId));
+        }
+    }
+    
+    public AccrualPartitionStatusResponse getStatus() {
+        return new AccrualPartitionStatusResponse(
+                partitionConfig.isEnabled(),
+                partitionConfig.getNodeId(),
+                partitionConfig.getPartitions(),
+                new ArrayList<>(new TreeSet<>(getOwnedPartitions())),
+                liveNodes
+        );
+    }
+    
+    private List<Integer> rebalance() {
+        String nodeId = partitionConfig.getNodeId();
+        LocalDateTime now = LocalDateTime.now();
+        
+        if (nodeRepository.heartbeat(nodeId, now) == 0) {
+            nodeRepository.save(new AccrualNode(nodeId, now));
+        }
+        List<String> live = new ArrayList<>(nodeRepository.findLiveNodeIds(now.minusSeconds(partitionConfig.getLeaseTtlSeconds())));
+        if (!live.contains(nodeId)) {
+            live.add(nodeId);
+        }
+        liveNodes = List.copyOf(live);
+        
+        Set<Integer> share = new TreeSet<>();
+        Set<Integer> others = new TreeSet<>();
+        for (int partition = 0; partition < partitionConfig.getPartitions(); partition++) {
+            (nodeId.equals(winner(partition, live)) ? share : others).add(partition);
+        }
+        
+        // Handing over first lets the new winner take the partition on its next tick
+        if (!others.isEmpty()) {
+            leaseRepository.release(nodeId, others);
+        }
+        if (!share.isEmpty()) {
+            leaseRepository.acquire(nodeId, share, now, now.plusSeconds(partitionConfig.getLeaseTtlSeconds()));
+        }
+        return leaseRepository.findOwned(nodeId, now);
+    }
+    
+    private static String winner(int partition, List<String> nodes) {
+        String winner = null;
+        long best = Long.MIN_VALUE;
+        for (String node : nodes) {
+            long score = score(node, partition);
+            if (winner == null || score > best || (score == best && node.compareTo(winner) < 0)) {
+                winner = node;
+                best = score;
+            }
+        }
+        return winner;
+    }
+    
+    private static long score(String nodeId, int partition) {
+        // Node ids like node-1, node-2 have adjacent hash codes, so the node is mixed on its own first
+        return mix(mix(nodeId.hashCode()) + partition * 0x9E3779B97F4A7C15L);
+    }
+    
+    /**
+     * SplitMix64 finalizer
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    private void seedPartitions() {
+        int partitions = partitionConfig.getPartitions();
+        Set<Integer> existing = new HashSet<>(leaseRepository.findAllPartitionIds());
+        if (existing.stream().anyMatch(partition -> partition >= partitions)) {
+            log.warn("accrual_partition_lease has partitions beyond {}; every node must use the same aurumx.accrual-partitions.partitions",
+                    partitions);
+        }
+        
+        List<AccrualPartitionLease> missing = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            if (!existing.contains(partition)) {
+                missing.add(new AccrualPartitionLease(partition, null, null));
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        try {
+            leaseTransaction.executeWithoutResult(status -> leaseRepository.saveAll(missing));
+        } catch (DataIntegrityViolationException ex) {
+            // Another node starting at the same time inserted them first
+            log.debug("Accrual partitions already seeded by another node");
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Set<Integer> lockedInCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Accrual partitions can only be locked inside a transaction");
+        }
+        Set<Integer> locked = (Set<Integer>) TransactionSynchronizationManager.getResource(this);
+        if (locked == null) {
+            Set<Integer> partitions = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, partitions);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AccrualPartitionService.this);
+                }
+            });
+            locked = partitions;
+        }
+        return locked;
+    }
+}
@@ -1,22 +1,36 @@
 package com.aurumx.service;
 
+import com.aurumx.config.RedemptionConfig;
 import com.aurumx.dto.request.AddToCartRequest;
+import com.aurumx.dto.request.ReplaceCartRequest;
+import com.aurumx.dto.response.CustomerResponse;
 import com.aurumx.dto.response.RedemptionResponse;
 import com.aurumx.entity.*;
 import com.aurumx.enums.RedemptionStatus;
 import com.aurumx.exception.BusinessRuleViolationException;
 import com.aurumx.exception.InsufficientRewardBalanceException;
 import com.aurumx.exception.ResourceNotFoundException;
+import com.aurumx.metrics.AurumxMetrics;
 import com.aurumx.repository.*;
+import com.aurumx.util.Points;
+import com.fasterxml.jackson.core.type.TypeReference;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
@@ -24,52 +38,102 @@ import java.util.List;
 @Slf4j
 public class CartService {
     
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final CustomerService customerService;
+    private final RewardCatalogService rewardCatalogService;
     private final RewardItemRepository rewardItemRepository;
     private final CustomerRepository customerRepository;
     private final RewardRepository rewardRepository;
     private final RedemptionHistoryRepository redemptionHistoryRepository;
+    private final RewardSummaryService rewardSummaryService;
+    private final IdempotencyService idempotencyService;
+    private final RedemptionConfig redemptionConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final AurumxMetrics metrics;
     
-    @Transactional
+    /**
+     * Add a reward item to the customer's cart, raising the quantity if it is already there
+     * The cart is written to the database in the background
+     */
     public void addToCart(AddToCartRequest request) {
-        Customer customer = customerRepository.findByIdAndDeletedFalse(request.getCustomerId())
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
-        
-        RewardItem rewardItem = rewardItemRepository.findById(request.getRewardItemId())
-                .orElseThrow(() -> new ResourceNotFoundException("Reward item not found"));
+        // Cached, and throws for unknown or deleted customers
+        CustomerResponse customer = customerService.getCustomerById(request.getCustomerId());
+        RewardItem rewardItem = findRewardItem(request.getRewardItemId());
         
         if (!rewardItem.isAvailable()) {
             throw new BusinessRuleViolationException("Reward item is not available");
         }
         
-        CartItem cartItem = new CartItem();
-        cartItem.setCustomer(customer);
-        cartItem.setRewardItem(rewardItem);
-        cartItem.setQuantity(request.getQuantity());
-        
-        cartItemRepository.save(cartItem);
+        cartStore.addLine(customer.getId(), rewardItem.getId(), request.getQuantity());
         log.info("Added {} x {} to cart for customer {}", 
                 request.getQuantity(), rewardItem.getName(), customer.getName());
     }
     
+    /**
+     * Cart built from memory, priced from the catalog snapshot
+     */
     public com.aurumx.dto.response.CartResponse getCart(Long customerId) {
-        List<CartItem> items = cartItemRepository.findByCustomerId(customerId);
+        List<CartStore.CartLine> lines = cartStore.getLines(customerId);
+        Map<Long, RewardItem> rewardItems = rewardItemsOf(lines.stream().map(CartStore.CartLine::rewardItemId).toList());
+        return toCartResponse(customerId, lines, rewardItems);
+    }
+    
+    /**
+     * Replace the whole cart with the given items in one change
+     * Items listed more than once are merged; an empty list clears the cart
+     */
+    public com.aurumx.dto.response.CartResponse replaceCart(Long customerId, ReplaceCartRequest request) {
+        // Cached, and throws for unknown or deleted customers
+        customerService.getCustomerById(customerId);
+        
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (ReplaceCartRequest.Item item : request.getItems()) {
+            quantities.merge(item.getRewardItemId(), item.getQuantity(), Integer::sum);
+        }
         
+        Map<Long, RewardItem> rewardItems = rewardItemsOf(quantities.keySet());
+        if (rewardItems.size() != quantities.size()) {
+            throw new ResourceNotFoundException("Reward item not found");
+        }
+        
+        // Same rule as for single lines: unavailable items may stay or shrink, but not be added or raised
+        Map<Long, Integer> current = new java.util.HashMap<>();
+        cartStore.getLines(customerId).forEach(line -> current.put(line.rewardItemId(), line.quantity()));
+        quantities.forEach((rewardItemId, quantity) -> {
+            if (quantity > current.getOrDefault(rewardItemId, 0) && !rewardItems.get(rewardItemId).isAvailable()) {
+                throw new BusinessRuleViolationException("Reward item is not available");
+            }
+        });
+        
+        List<CartStore.CartLine> lines = cartStore.replaceLines(customerId, quantities);
+        log.info("Replaced cart of customer {} with {} lines", customerId, lines.size());
+        return toCartResponse(customerId, lines, rewardItems);
+    }
+    
+    private com.aurumx.dto.response.CartResponse toCartResponse(Long customerId, List<CartStore.CartLine> lines,
+                                                               Map<Long, RewardItem> rewardItems) {
         List<com.aurumx.dto.response.CartResponse.CartItemDto> itemDtos = new ArrayList<>();
         int totalPoints = 0;
         
-        for (CartItem item : items) {
-            int itemTotal = item.getRewardItem().getPointsCost() * item.getQuantity();
+        for (CartStore.CartLine line : lines) {
+            RewardItem rewardItem = rewardItems.get(line.rewardItemId());
+            if (rewardItem == null) {
+                // Deleted from the catalog while the line was only in memory; redemption refuses it
+                log.warn("Cart line {} of customer {} refers to missing reward item {}",
+                        line.id(), customerId, line.rewardItemId());
+                continue;
+            }
+            int itemTotal = rewardItem.getPointsCost() * line.quantity();
             totalPoints += itemTotal;
             
             itemDtos.add(new com.aurumx.dto.response.CartResponse.CartItemDto(
-                item.getId(),
-                item.getRewardItem().getId(),
-                item.getRewardItem().getName(),
-                item.getQuantity(),
-                item.getRewardItem().getPointsCost(),
+                line.id(),
+                rewardItem.getId(),
+                rewardItem.getName(),
+                line.quantity(),
+                rewardItem.getPointsCost(),
                 itemTotal,
-                item.getAddedAt()
+                line.addedAt()
             ));
         }
         
@@ -81,64 +145,139 @@ public class CartService {
         );
     }
     
-    @Transactional
     public void removeFromCart(Long cartItemId) {
-        cartItemRepository.deleteById(cartItemId);
+        cartStore.removeLine(cartItemId);
     }
-
-    @Transactional
+    
     public void updateCartItemQuantity(Long cartItemId, int quantity) {
         if (quantity <= 0) {
-            cartItemRepository.deleteById(cartItemId);
+            cartStore.removeLine(cartItemId);
             return;
         }
         
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
+        CartStore.CartLine cartLine = cartStore.findLine(cartItemId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
         
         // Ensure reward item is still available if increasing (optional check, but good practice)
-        if (quantity > cartItem.getQuantity() && !cartItem.getRewardItem().isAvailable()) {
+        if (quantity > cartLine.quantity() && !findRewardItem(cartLine.rewardItemId()).isAvailable()) {
             throw new BusinessRuleViolationException("Reward item is no longer available");
         }
         
-        cartItem.setQuantity(quantity);
-        cartItemRepository.save(cartItem);
+        if (!cartStore.setQuantity(cartItemId, quantity)) {
+            throw new ResourceNotFoundException("Cart item not found");
+        }
     }
     
     /**
      * Redeem all cart items for a customer
      * All-or-nothing redemption - partial redemption not allowed
      * Balance can never go negative
+     * Retried a bounded number of times when it conflicts with a concurrent update of the same card or cart
      */
-    @Transactional
     public RedemptionResponse redeemCart(Long customerId, Long creditCardId) {
+        return redeemCart(customerId, creditCardId, null);
+    }
+    
+    /**
+     * Redeem the cart at most once per idempotency key
+     * A retry with the same key returns the original response without redeeming again,
+     * unless the cart now holds other lines than the ones that were redeemed
+     * @param idempotencyKey value of the Idempotency-Key header, may be null
+     */
+    public RedemptionResponse redeemCart(Long customerId, Long creditCardId, String idempotencyKey) {
+        int maxAttempts = Math.max(0, redemptionConfig.getMaxRetries()) + 1;
+        String request = "POST /cart/" + customerId + "/redeem?creditCardId=" + creditCardId;
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // The lines are part of the fingerprint; read again on every attempt, since a conflict may have changed them
+                String state = idempotencyKey != null ? cartState(cartStore.getLines(customerId)) : null;
+                // Each attempt claims the key in its own transaction, so a conflict releases it again
+                return idempotencyService.execute(idempotencyKey, request, state, new TypeReference<>() {},
+                        () -> transactionTemplate.execute(status ->
+                                redeemCartOnce(customerId, creditCardId, idempotencyKey != null, state)));
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+                log.warn("Redemption for customer {} conflicted with a concurrent update, retrying ({}/{})",
+                        customerId, attempt, maxAttempts - 1);
+                backOff(attempt);
+            }
+        }
+    }
+    
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(5, 25) * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessRuleViolationException("Redemption interrupted");
+        }
+    }
+    
+    /**
+     * Reward items and quantities of the given lines in a stable order, null for an empty cart
+     */
+    private static String cartState(List<CartStore.CartLine> lines) {
+        if (lines.isEmpty()) {
+            return null;
+        }
+        return lines.stream()
+                .sorted(java.util.Comparator.comparing(CartStore.CartLine::rewardItemId))
+                .map(line -> line.rewardItemId() + "x" + line.quantity())
+                .collect(Collectors.joining(","));
+    }
+    
+    /**
+     * @param checkState whether the locked lines must be the ones described by state
+     */
+    private RedemptionResponse redeemCartOnce(Long customerId, Long creditCardId, boolean checkState, String state) {
         Customer customer = customerRepository.findByIdAndDeletedFalse(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
         
-        List<CartItem> cartItems = cartItemRepository.findByCustomerId(customerId);
+        // Keeps a concurrent redemption of the same cart waiting until this one completes
+        List<CartStore.CartLine> cartLines = cartStore.lockForRedemption(customerId);
         
-        if (cartItems.isEmpty()) {
+        if (cartLines.isEmpty()) {
             throw new BusinessRuleViolationException("Cart is empty");
         }
         
+        // The key is stored with the fingerprint of the lines read before the lock; redeem exactly those
+        if (checkState && !cartState(cartLines).equals(state)) {
+            throw new OptimisticLockingFailureException("Cart of customer " + customerId + " changed while redeeming");
+        }
+        
         // Get Reward account for the selected CARD
-        Reward reward = rewardRepository.findByCreditCardId(creditCardId)
+        Reward reward = rewardRepository.findWithCardByCreditCardId(creditCardId)
                 .orElseThrow(() -> new ResourceNotFoundException("Reward account not found for this card"));
-                
+        
         // Verify card belongs to customer
         if (!reward.getCreditCard().getCustomer().getId().equals(customerId)) {
             throw new BusinessRuleViolationException("Credit card does not belong to this customer");
         }
         
-        // Calculate total points required
-        BigDecimal totalPointsRequired = BigDecimal.ZERO;
-        for (CartItem cartItem : cartItems) {
-            int itemTotal = cartItem.getRewardItem().getPointsCost() * cartItem.getQuantity();
-            totalPointsRequired = totalPointsRequired.add(BigDecimal.valueOf(itemTotal));
+        // Prices come from the database, not the catalog snapshot, since they are charged now
+        Map<Long, RewardItem> rewardItems = rewardItemRepository
+                .findAllById(cartLines.stream().map(CartStore.CartLine::rewardItemId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(RewardItem::getId, Function.identity()));
+        
+        // Calculate total points required, in hundredths
+        long totalPoints = Points.ZERO;
+        for (CartStore.CartLine cartLine : cartLines) {
+            RewardItem rewardItem = rewardItems.get(cartLine.rewardItemId());
+            if (rewardItem == null) {
+                throw new ResourceNotFoundException("Reward item not found");
+            }
+            long itemTotal = (long) rewardItem.getPointsCost() * cartLine.quantity();
+            totalPoints = Points.add(totalPoints, Points.ofWhole(itemTotal));
         }
+        BigDecimal totalPointsRequired = Points.toBigDecimal(totalPoints);
         
         // Check balance
-        if (reward.getPointsBalance().compareTo(totalPointsRequired) < 0) {
+        if (Points.toHundredths(reward.getPointsBalance()) < totalPoints) {
+            metrics.insufficientBalance();
             throw new com.aurumx.exception.InsufficientRewardBalanceException(
                     "Insufficient points balance. Required: " + totalPointsRequired + 
                     ", Available: " + reward.getPointsBalance()
@@ -154,35 +293,44 @@ public class CartService {
         List<RedemptionItem> redemptionItems = new ArrayList<>();
         List<RedemptionResponse.RedemptionItemDto> responseDtos = new ArrayList<>();
         
-        for (CartItem cartItem : cartItems) {
+        for (CartStore.CartLine cartLine : cartLines) {
+            RewardItem rewardItem = rewardItems.get(cartLine.rewardItemId());
             RedemptionItem redemptionItem = new RedemptionItem();
             redemptionItem.setRedemption(redemptionHistory);
-            redemptionItem.setRewardItem(cartItem.getRewardItem());
-            redemptionItem.setQuantity(cartItem.getQuantity());
-            redemptionItem.setPointsCost(cartItem.getRewardItem().getPointsCost());
+            redemptionItem.setRewardItem(rewardItem);
+            redemptionItem.setQuantity(cartLine.quantity());
+            redemptionItem.setPointsCost(rewardItem.getPointsCost());
             redemptionItems.add(redemptionItem);
             
-            int itemTotal = cartItem.getRewardItem().getPointsCost() * cartItem.getQuantity();
+            int itemTotal = rewardItem.getPointsCost() * cartLine.quantity();
             responseDtos.add(new RedemptionResponse.RedemptionItemDto(
-                    cartItem.getRewardItem().getName(),
-                    cartItem.getQuantity(),
-                    cartItem.getRewardItem().getPointsCost(),
+                    rewardItem.getName(),
+                    cartLine.quantity(),
+                    rewardItem.getPointsCost(),
                     itemTotal
             ));
         }
         
         redemptionHistory.setItems(redemptionItems);
         
-        // Deduct points
-        reward.setPointsBalance(reward.getPointsBalance().subtract(totalPointsRequired));
-        reward.setLastUpdated(LocalDateTime.now());
+        // Deduct points atomically; the check above may be stale if another redemption ran concurrently
+        int debited = rewardRepository.debitPoints(creditCardId, totalPointsRequired, LocalDateTime.now());
+        if (debited == 0) {
+            metrics.insufficientBalance();
+            throw new InsufficientRewardBalanceException(
+                    "Insufficient points balance. Required: " + totalPointsRequired +
+                    ", Available: " + rewardRepository.findPointsBalanceByCreditCardId(creditCardId).orElse(BigDecimal.ZERO)
+            );
+        }
         
         // Save
-        RedemptionHistory savedRedemption = redemptionHistoryRepository.save(redemptionHistory);
-        rewardRepository.save(reward);
+        // Flush so the history and its items go out as one insert batch and redeemedAt is populated
+        RedemptionHistory savedRedemption = redemptionHistoryRepository.saveAndFlush(redemptionHistory);
+        rewardSummaryService.recordRedemption(customerId, totalPoints);
+        metrics.redeemed(totalPoints);
         
-        // Clear cart
-        cartItemRepository.deleteAll(cartItems);
+        // Clear cart; a concurrent redemption of the same cart on another node makes this fail and retry
+        cartStore.consume(customerId, cartLines);
         
         return new RedemptionResponse(
                 savedRedemption.getId(),
@@ -193,6 +341,31 @@ public class CartService {
         );
     }
     
+    /**
+     * Reward items with the given ids, from the catalog snapshot where possible
+     */
+    private Map<Long, RewardItem> rewardItemsOf(Collection<Long> rewardItemIds) {
+        RewardCatalogService.CatalogSnapshot catalog = rewardCatalogService.getSnapshot();
+        Map<Long, RewardItem> rewardItems = new java.util.HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long rewardItemId : rewardItemIds) {
+            catalog.findItem(rewardItemId).ifPresentOrElse(
+                    item -> rewardItems.put(item.getId(), item),
+                    () -> missing.add(rewardItemId));
+        }
+        if (!missing.isEmpty()) {
+            // Items that became unavailable or were added after the snapshot was taken
+            rewardItemRepository.findAllById(missing).forEach(item -> rewardItems.put(item.getId(), item));
+        }
+        return rewardItems;
+    }
+    
+    private RewardItem findRewardItem(Long rewardItemId) {
+        return rewardCatalogService.getSnapshot().findItem(rewardItemId)
+                .or(() -> rewardItemRepository.findById(rewardItemId))
+                .orElseThrow(() -> new ResourceNotFoundException("Reward item not found"));
+    }
+    
     public List<RedemptionHistory> getRedemptionHistory(Long customerId) {
         return redemptionHistoryRepository.findByCustomerIdOrderByRedeemedAtDesc(customerId);
     }
@@ -0,0 +1,765 @@
+package com.aurumx.service;
+
+import com.aurumx.config.CartConfig;
+import com.aurumx.entity.CartItem;
+import com.aurumx.repository.CartItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shopping carts held in memory and written behind to cart_item
+ * A cart is loaded on first use and changed in memory under a lock striped by customer id.
+ * Changed carts are written by a background thread every flush-interval-ms, all of them in one
+ * transaction with one JDBC batch per statement type, so a line added and removed again between
+ * two writes never reaches the database and repeated quantity changes cost one update.
+ * A cart holds one line per reward item; adding an item that is already in the cart raises its quantity.
+ * Line ids are drawn from the cart_item sequence when the line is added, so they never change. They are
+ * reserved a block of allocation size at a time, so adding a line rarely reaches the database.
+ *
+ * A second striped lock serialises the database writes of a cart. The background writer skips
+ * carts whose lock is taken, and redemption holds it until its transaction completes, which makes
+ * the redeemed lines durable as part of the redemption and keeps two redemptions of one cart apart.
+ * With write-behind disabled every change is written before the call returns and carts are not kept.
+ */
+@Service
+@Slf4j
+public class CartStore {
+    
+    public record CartLine(Long id, Long rewardItemId, int quantity, LocalDateTime addedAt) {
+    }
+    
+    // Adds to a row for the same reward item written by another node instead of failing on uk_cart_item_customer_item
+    private static final String INSERT_SQL =
+            "INSERT INTO cart_item (id, customer_id, reward_item_id, quantity, added_at) VALUES (?, ?, ?, ?, ?)"
+                    + " AS new ON DUPLICATE KEY UPDATE quantity = cart_item.quantity + new.quantity";
+    // VALUES() in the update clause is deprecated since MySQL 8.0.20, but H2, MariaDB and older MySQL only know this form
+    private static final String LEGACY_INSERT_SQL =
+            "INSERT INTO cart_item (id, customer_id, reward_item_id, quantity, added_at) VALUES (?, ?, ?, ?, ?)"
+                    + " ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+    private static final Pattern VERSION = Pattern.compile("^(\\d+)\\.(\\d+)\\.(\\d+)");
+    private static final String UPDATE_SQL = "UPDATE cart_item SET quantity = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM cart_item WHERE id = ?";
+    private static final String FIND_ROW_SQL =
+            "SELECT id, quantity, added_at FROM cart_item WHERE customer_id = ? AND reward_item_id = ?";
+    private static final int MAX_CARTS_PER_WRITE = 500;
+    
+    private final CartItemRepository cartItemRepository;
+    private final CartConfig cartConfig;
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final TransactionTemplate writeTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+    private final IdentifierGenerator lineIdGenerator;
+    private final int lineIdBlockSize;
+    // Reserved line ids not handed out yet, guarded by lineIdLock
+    private final Deque<Long> freeLineIds = new ArrayDeque<>();
+    private final ReentrantLock lineIdLock = new ReentrantLock();
+    
+    private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lineOwners = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyCustomers = ConcurrentHashMap.newKeySet();
+    // Locks rather than synchronized, so a virtual thread loading a cart does not pin its carrier
+    private final ReentrantLock[] cartLocks;
+    private final ReentrantLock[] writeLocks;
+    private ScheduledExecutorService writer;
+    
+    public CartStore(CartItemRepository cartItemRepository,
+                     CartConfig cartConfig,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     EntityManagerFactory entityManagerFactory) {
+        this.cartItemRepository = cartItemRepository;
+        this.cartConfig = cartConfig;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = jdbcTemplate.execute((ConnectionCallback<String>) connection -> insertSql(
+                connection.getMetaData().getDatabaseProductName(), connection.getMetaData().getDatabaseProductVersion()));
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+        this.lineIdGenerator = (IdentifierGenerator) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(CartItem.class).getGenerator();
+        this.lineIdBlockSize = lineIdGenerator instanceof SequenceStyleGenerator generator
+                ? Math.max(1, generator.getOptimizer().getIncrementSize())
+                : 1;
+        
+        int stripes = Math.max(1, cartConfig.getLockStripes());
+        this.cartLocks = new ReentrantLock[stripes];
+        this.writeLocks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            cartLocks[i] = new ReentrantLock();
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!cartConfig.isWriteBehind()) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cart-writer-");
+        threadFactory.setDaemon(true);
+        writer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        long interval = Math.max(1, cartConfig.getFlushIntervalMs());
+        writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Write every pending change before the application context closes
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        write(new ArrayList<>(dirtyCustomers), true, false);
+        if (!dirtyCustomers.isEmpty()) {
+            log.warn("Cart changes of {} customers could not be written on shutdown", dirtyCustomers.size());
+        }
+    }
+    
+    public List<CartLine> getLines(Long customerId) {
+        return access(customerId, () -> withCart(customerId, Cart::snapshot));
+    }
+    
+    public Optional<CartLine> findLine(Long lineId) {
+        Long customerId = ownerOf(lineId);
+        if (customerId == null) {
+            return Optional.empty();
+        }
+        return access(customerId,
+                () -> withCart(customerId, cart -> Optional.ofNullable(cart.lines.get(lineId)).map(Line::toCartLine)));
+    }
+    
+    /**
+     * Add quantity of a reward item, merged into the line for that item if the cart has one
+     */
+    public CartLine addLine(Long customerId, Long rewardItemId, int quantity) {
+        return change(customerId, cart -> {
+            Line line = cart.findByRewardItem(rewardItemId);
+            if (line != null) {
+                line.quantity += quantity;
+                line.version++;
+                return line.toCartLine();
+            }
+            line = new Line(nextLineId(), rewardItemId, quantity, LocalDateTime.now(), false);
+            cart.lines.put(line.id, line);
+            lineOwners.put(line.id, customerId);
+            return line.toCartLine();
+        });
+    }
+    
+    /**
+     * Replace the contents of a cart in one change
+     * Lines of reward items still wanted keep their id and take the new quantity, the others are removed
+     * @param quantities quantity per reward item, all greater than zero
+     * @return the lines of the cart afterwards
+     */
+    public List<CartLine> replaceLines(Long customerId, Map<Long, Integer> quantities) {
+        return change(customerId, cart -> {
+            Map<Long, Integer> added = new LinkedHashMap<>(quantities);
+            for (Line line : List.copyOf(cart.lines.values())) {
+                Integer quantity = added.remove(line.rewardItemId);
+                if (quantity == null) {
+                    cart.remove(line);
+                    lineOwners.remove(line.id);
+                } else if (line.quantity != quantity) {
+                    line.quantity = quantity;
+                    line.version++;
+                }
+            }
+            added.forEach((rewardItemId, quantity) -> {
+                Line line = new Line(nextLineId(), rewardItemId, quantity, LocalDateTime.now(), false);
+                cart.lines.put(line.id, line);
+                lineOwners.put(line.id, customerId);
+            });
+            return cart.snapshot();
+        });
+    }
+    
+    /**
+     * Set the quantity of a line, removing it when quantity is zero or less
+     * @return false if the line does not exist
+     */
+    public boolean setQuantity(Long lineId, int quantity) {
+        Long customerId = ownerOf(lineId);
+        if (customerId == null) {
+            return false;
+        }
+        return change(customerId, cart -> {
+            Line line = cart.lines.get(lineId);
+            if (line == null) {
+                return false;
+            }
+            if (quantity <= 0) {
+                cart.remove(line);
+                lineOwners.remove(lineId);
+            } else if (line.quantity != quantity) {
+                line.quantity = quantity;
+                line.version++;
+            }
+            return true;
+        });
+    }
+    
+    public void removeLine(Long lineId) {
+        setQuantity(lineId, 0);
+    }
+    
+    /**
+     * Lines of a cart about to be redeemed
+     * Blocks every other database write of the cart until the current transaction completes
+     */
+    public List<CartLine> lockForRedemption(Long customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("A cart can only be locked for redemption inside a transaction");
+        }
+        ReentrantLock writeLock = writeLock(customerId);
+        writeLock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    evictIfWriteThrough(customerId);
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        });
+        return withCart(customerId, Cart::snapshot);
+    }
+    
+    /**
+     * Delete redeemed lines in the current transaction and drop them from memory once it commits
+     * Lines that were never written are only dropped from memory. A line whose quantity was raised
+     * while the redemption ran keeps the difference, to be written again as a new row.
+     * @throws OptimisticLockingFailureException if another node redeemed some of them first
+     */
+    public void consume(Long customerId, List<CartLine> lines) {
+        List<Long> lineIds = lines.stream().map(CartLine::id).toList();
+        long stored = withCart(customerId, cart -> lineIds.stream()
+                .map(cart.lines::get)
+                .filter(line -> line != null && line.stored)
+                .count());
+        
+        int deleted = stored > 0 ? cartItemRepository.deleteLines(lineIds) : 0;
+        if (deleted != stored) {
+            throw new OptimisticLockingFailureException("Cart of customer " + customerId + " was redeemed concurrently");
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ReentrantLock lock = cartLock(customerId);
+                lock.lock();
+                try {
+                    Cart cart = carts.get(customerId);
+                    for (CartLine consumed : lines) {
+                        Line line = cart != null ? cart.lines.get(consumed.id()) : null;
+                        if (line != null && line.quantity > consumed.quantity()) {
+                            // Its row is gone; what was added after the lock is inserted again
+                            line.quantity -= consumed.quantity();
+                            line.version++;
+                            line.stored = false;
+                            dirtyCustomers.add(customerId);
+                            continue;
+                        }
+                        if (cart != null) {
+                            cart.lines.remove(consumed.id());
+                            cart.removed.remove(consumed.id());
+                        }
+                        lineOwners.remove(consumed.id());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+    
+    private <T> T change(Long customerId, Function<Cart, T> change) {
+        return access(customerId, () -> {
+            T result = withCart(customerId, cart -> {
+                T changed = change.apply(cart);
+                if (cart.isDirty()) {
+                    dirtyCustomers.add(customerId);
+                }
+                return changed;
+            });
+            if (!cartConfig.isWriteBehind()) {
+                write(List.of(customerId), true, true);
+            }
+            return result;
+        });
+    }
+    
+    /**
+     * Without write-behind a cart only lives for one call, which holds its write lock throughout
+     * so that no other call's unwritten change is evicted with it
+     */
+    private <T> T access(Long customerId, Supplier<T> action) {
+        if (cartConfig.isWriteBehind()) {
+            return action.get();
+        }
+        ReentrantLock writeLock = writeLock(customerId);
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            try {
+                evict(customerId);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+    
+    private <T> T withCart(Long customerId, Function<Cart, T> action) {
+        ReentrantLock lock = cartLock(customerId);
+        lock.lock();
+        try {
+            Cart cart = carts.get(customerId);
+            if (cart == null) {
+                cart = load(customerId);
+                carts.put(customerId, cart);
+            }
+            cart.lastUsedNanos = System.nanoTime();
+            return action.apply(cart);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private Cart load(Long customerId) {
+        Cart cart = new Cart();
+        for (CartItemRepository.CartLineRow row : cartItemRepository.findLinesByCustomerId(customerId)) {
+            cart.lines.put(row.getId(), new Line(row.getId(), row.getRewardItemId(), row.getQuantity(), row.getAddedAt(), true));
+            lineOwners.put(row.getId(), customerId);
+        }
+        return cart;
+    }
+    
+    private Long ownerOf(Long lineId) {
+        Long customerId = lineOwners.get(lineId);
+        return customerId != null ? customerId : cartItemRepository.findCustomerIdById(lineId).orElse(null);
+    }
+    
+    /**
+     * Next reserved line id, reserving another block when none are left
+     */
+    private Long nextLineId() {
+        lineIdLock.lock();
+        try {
+            if (freeLineIds.isEmpty()) {
+                freeLineIds.addAll(reserveLineIds(lineIdBlockSize));
+            }
+            return freeLineIds.poll();
+        } finally {
+            lineIdLock.unlock();
+        }
+    }
+    
+    /**
+     * Ids are drawn with the session of a write transaction, as for entity inserts
+     * On MySQL the sequence is a table, bumped by Hibernate in a transaction isolated from that one.
+     * With the pooled-lo optimizer a block of allocation size costs one round trip.
+     */
+    private List<Long> reserveLineIds(int count) {
+        return writeTransaction.execute(status -> {
+            SharedSessionContractImplementor session = EntityManagerFactoryUtils
+                    .getTransactionalEntityManager(entityManagerFactory)
+                    .unwrap(SharedSessionContractImplementor.class);
+            List<Long> lineIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                lineIds.add((Long) lineIdGenerator.generate(session, null));
+            }
+            return lineIds;
+        });
+    }
+    
+    private void flush() {
+        try {
+            List<Long> customerIds = new ArrayList<>(dirtyCustomers);
+            for (int from = 0; from < customerIds.size(); from += MAX_CARTS_PER_WRITE) {
+                write(customerIds.subList(from, Math.min(from + MAX_CARTS_PER_WRITE, customerIds.size())), false, false);
+            }
+            evictIdle();
+        } catch (RuntimeException ex) {
+            log.error("Cart write-behind failed", ex);
+        }
+    }
+    
+    /**
+     * Write the pending changes of the given carts in one transaction
+     * @param wait wait for carts whose database writes are locked instead of skipping them
+     * @param rethrow rethrow a failed write instead of keeping the changes for the next attempt
+     */
+    private void write(List<Long> customerIds, boolean wait, boolean rethrow) {
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            List<PendingWrite> pending = new ArrayList<>();
+            for (Long customerId : customerIds) {
+                ReentrantLock writeLock = writeLock(customerId);
+                if (wait) {
+                    writeLock.lock();
+                } else if (!writeLock.tryLock()) {
+                    continue;
+                }
+                held.add(writeLock);
+                PendingWrite write = collect(customerId);
+                if (write != null) {
+                    pending.add(write);
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            
+            try {
+                writeTransaction.executeWithoutResult(status -> writeRows(pending));
+                pending.forEach(write -> complete(write, true));
+            } catch (RuntimeException ex) {
+                pending.forEach(write -> complete(write, false));
+                if (rethrow) {
+                    throw ex;
+                }
+                log.warn("Writing {} carts failed, retrying with the next write", pending.size(), ex);
+            }
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+    }
+    
+    private PendingWrite collect(Long customerId) {
+        ReentrantLock lock = cartLock(customerId);
+        lock.lock();
+        try {
+            // Removed first, so changes made from here on mark the cart again
+            dirtyCustomers.remove(customerId);
+            Cart cart = carts.get(customerId);
+            if (cart == null || !cart.isDirty()) {
+                return null;
+            }
+            PendingWrite write = new PendingWrite(customerId, cart, List.copyOf(cart.removed));
+            for (Line line : cart.lines.values()) {
+                if (!line.stored) {
+                    line.inserting = true;
+                    write.inserts.add(new LineWrite(line, line.version, line.quantity));
+                } else if (line.version != line.writtenVersion) {
+                    write.updates.add(new LineWrite(line, line.version, line.quantity));
+                }
+            }
+            return write;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void writeRows(List<PendingWrite> pending) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        // Each insert and its owner, in batch order
+        List<LineWrite> insertLines = new ArrayList<>();
+        List<PendingWrite> insertOwners = new ArrayList<>();
+        for (PendingWrite write : pending) {
+            for (LineWrite insert : write.inserts) {
+                Line line = insert.line();
+                inserts.add(new Object[]{line.id, write.customerId, line.rewardItemId, insert.quantity(), line.addedAt});
+                insertLines.add(insert);
+                insertOwners.add(write);
+            }
+            for (LineWrite update : write.updates) {
+                updates.add(new Object[]{update.quantity(), update.line().id});
+            }
+            for (Long lineId : write.deletes) {
+                deletes.add(new Object[]{lineId});
+            }
+        }
+        // Deletes first: a reward item removed and added again gets a new line with the same unique key
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+        }
+        if (!inserts.isEmpty()) {
+            findMerged(insertLines, insertOwners, jdbcTemplate.batchUpdate(insertSql, inserts));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+    }
+    
+    /**
+     * Record the inserts the upsert merged into a row another node had written for the same reward item
+     * MySQL counts 1 for an inserted row and 2 for a merged one. A rewritten batch counts neither,
+     * and then the rows are looked up by id.
+     * @param lines the inserts, in batch order
+     * @param owners owner of each insert
+     */
+    private void findMerged(List<LineWrite> lines, List<PendingWrite> owners, int[] counts) {
+        List<Integer> merged = new ArrayList<>();
+        List<Integer> unknown = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 2) {
+                merged.add(i);
+            } else if (counts[i] != 1) {
+                unknown.add(i);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            List<Long> lineIds = unknown.stream().map(i -> lines.get(i).line().id).toList();
+            Set<Long> inserted = new HashSet<>(jdbcTemplate.queryForList(
+                    "SELECT id FROM cart_item WHERE id IN (" + String.join(",", Collections.nCopies(lineIds.size(), "?")) + ")",
+                    Long.class, lineIds.toArray()));
+            unknown.stream().filter(i -> !inserted.contains(lines.get(i).line().id)).forEach(merged::add);
+        }
+        for (int i : merged) {
+            PendingWrite write = owners.get(i);
+            LineWrite insert = lines.get(i);
+            write.merged.put(insert.line(), jdbcTemplate.queryForObject(FIND_ROW_SQL,
+                    (rs, rowNum) -> new StoredRow(rs.getLong("id"), rs.getInt("quantity"),
+                            rs.getTimestamp("added_at").toLocalDateTime()),
+                    write.customerId, insert.line().rewardItemId));
+        }
+    }
+    
+    private void complete(PendingWrite write, boolean written) {
+        ReentrantLock lock = cartLock(write.customerId);
+        lock.lock();
+        try {
+            for (LineWrite insert : write.inserts) {
+                insert.line().inserting = false;
+                if (!written) {
+                    continue;
+                }
+                StoredRow merged = write.merged.get(insert.line());
+                if (merged != null) {
+                    rebind(write, insert, merged);
+                } else {
+                    insert.line().stored = true;
+                    insert.line().writtenVersion = insert.version();
+                }
+            }
+            if (written) {
+                write.updates.forEach(update -> update.line().writtenVersion = update.version());
+                write.cart.removed.removeAll(write.deletes);
+            }
+            if (write.cart.isDirty()) {
+                dirtyCustomers.add(write.customerId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Replace a line whose insert was merged into another node's row with a line for that row
+     * Its id was never written, so statements by that id would miss; quantity changed since the
+     * write is carried over, and a removal now removes the merged row
+     */
+    private void rebind(PendingWrite write, LineWrite insert, StoredRow row) {
+        Line merged = insert.line();
+        lineOwners.remove(merged.id);
+        if (write.cart.removed.remove(merged.id)) {
+            write.cart.removed.add(row.id());
+            return;
+        }
+        if (write.cart.lines.remove(merged.id) == null) {
+            return;
+        }
+        Line line = new Line(row.id(), merged.rewardItemId, row.quantity() + merged.quantity - insert.quantity(),
+                row.addedAt(), true);
+        if (line.quantity != row.quantity()) {
+            line.version++;
+        }
+        write.cart.lines.put(line.id, line);
+        lineOwners.put(line.id, write.customerId);
+    }
+    
+    /**
+     * The upsert for the database the pool connects to
+     * The row alias needs MySQL 8.0.19 or later; MariaDB reports itself as MySQL 5.5.5
+     */
+    static String insertSql(String databaseProduct, String databaseVersion) {
+        Matcher version = VERSION.matcher(databaseVersion);
+        if (!"MySQL".equals(databaseProduct) || !version.find()) {
+            return LEGACY_INSERT_SQL;
+        }
+        int major = Integer.parseInt(version.group(1));
+        int minor = Integer.parseInt(version.group(2));
+        int patch = Integer.parseInt(version.group(3));
+        boolean rowAlias = major > 8 || major == 8 && (minor > 0 || patch >= 19);
+        return rowAlias ? INSERT_SQL : LEGACY_INSERT_SQL;
+    }
+    
+    private void evictIfWriteThrough(Long customerId) {
+        if (!cartConfig.isWriteBehind()) {
+            evict(customerId);
+        }
+    }
+    
+    private void evict(Long customerId) {
+        ReentrantLock lock = cartLock(customerId);
+        lock.lock();
+        try {
+            Cart cart = carts.remove(customerId);
+            if (cart != null) {
+                cart.lines.keySet().forEach(lineOwners::remove);
+            }
+            dirtyCustomers.remove(customerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void evictIdle() {
+        long idleBefore = System.nanoTime() - TimeUnit.SECONDS.toNanos(cartConfig.getIdleTtlSeconds());
+        for (Map.Entry<Long, Cart> entry : carts.entrySet()) {
+            Long customerId = entry.getKey();
+            if (entry.getValue().lastUsedNanos - idleBefore > 0) {
+                continue;
+            }
+            ReentrantLock writeLock = writeLock(customerId);
+            if (!writeLock.tryLock()) {
+                continue;
+            }
+            ReentrantLock lock = cartLock(customerId);
+            lock.lock();
+            try {
+                Cart cart = carts.get(customerId);
+                if (cart != null && !cart.isDirty() && cart.lastUsedNanos - idleBefore <= 0) {
+                    carts.remove(customerId);
+                    cart.lines.keySet().forEach(lineOwners::remove);
+                }
+            } finally {
+                lock.unlock();
+                writeLock.unlock();
+            }
+        }
+    }
+    
+    private ReentrantLock cartLock(Long customerId) {
+        return cartLocks[Math.floorMod(customerId, cartLocks.length)];
+    }
+    
+    private ReentrantLock writeLock(Long customerId) {
+        return writeLocks[Math.floorMod(customerId, writeLocks.length)];
+    }
+    
+    /**
+     * Guarded by the cart lock of its customer
+     */
+    private static final class Cart {
+        final Map<Long, Line> lines = new LinkedHashMap<>();
+        // Lines removed from memory whose row may exist in the database
+        final Set<Long> removed = new HashSet<>();
+        long lastUsedNanos;
+        
+        void remove(Line line) {
+            lines.remove(line.id);
+            if (line.stored || line.inserting) {
+                removed.add(line.id);
+            }
+        }
+        
+        Line findByRewardItem(Long rewardItemId) {
+            for (Line line : lines.values()) {
+                if (line.rewardItemId.equals(rewardItemId)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+        
+        boolean isDirty() {
+            if (!removed.isEmpty()) {
+                return true;
+            }
+            for (Line line : lines.values()) {
+                if (!line.stored || line.version != line.writtenVersion) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        List<CartLine> snapshot() {
+            List<CartLine> snapshot = new ArrayList<>(lines.size());
+            lines.values().forEach(line -> snapshot.add(line.toCartLine()));
+            return snapshot;
+        }
+    }
+    
+    private static final class Line {
+        final Long id;
+        final Long rewardItemId;
+        final LocalDateTime addedAt;
+        int quantity;
+        long version;
+        long writtenVersion;
+        boolean stored;
+        boolean inserting;
+        
+        Line(Long id, Long rewardItemId, int quantity, LocalDateTime addedAt, boolean stored) {
+            this.id = id;
+            this.rewardItemId = rewardItemId;
+            this.quantity = quantity;
+            this.addedAt = addedAt;
+            this.stored = stored;
+        }
+        
+        CartLine toCartLine() {
+            return new CartLine(id, rewardItemId, quantity, addedAt);
+        }
+    }
+    
+    private record LineWrite(Line line, long version, int quantity) {
+    }
+    
+    private record StoredRow(Long id, int quantity, LocalDateTime addedAt) {
+    }
+    
+    private static final class PendingWrite {
+        final Long customerId;
+        final Cart cart;
+        final List<Long> deletes;
+        final List<LineWrite> inserts = new ArrayList<>();
+        final List<LineWrite> updates = new ArrayList<>();
+        // Inserted lines the upsert merged into an existing row, and that row
+        final Map<Line, StoredRow> merged = new HashMap<>();
+        
+        PendingWrite(Long customerId, Cart cart, List<Long> deletes) {
+            this.customerId = customerId;
+            this.cart = cart;
+            this.deletes = deletes;
+        }
+    }
+}
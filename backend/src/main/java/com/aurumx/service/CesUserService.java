@@ -5,6 +5,7 @@ import com.aurumx.entity.CesUser;
 import com.aurumx.exception.BusinessRuleViolationException;
 import com.aurumx.exception.ResourceNotFoundException;
 import com.aurumx.repository.CesUserRepository;
+import com.aurumx.security.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -19,6 +20,7 @@ public class CesUserService {
     
     private final CesUserRepository cesUserRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserDetailsCache userDetailsCache;
     
     @Transactional
     public CesUser createCesUser(CreateCesUserRequest request) {
@@ -32,7 +34,9 @@ public class CesUserService {
         cesUser.setRole(request.getRole());
         cesUser.setActive(true);
         
-        return cesUserRepository.save(cesUser);
+        CesUser savedUser = cesUserRepository.save(cesUser);
+        userDetailsCache.evict(savedUser.getUsername());
+        return savedUser;
     }
     
     public List<CesUser> getAllCesUsers() {
@@ -52,5 +56,6 @@ public class CesUserService {
         }
         
         cesUserRepository.delete(userToDelete);
+        userDetailsCache.evict(userToDelete.getUsername());
     }
 }
@@ -1,5 +1,6 @@
 package com.aurumx.service;
 
+import com.aurumx.cache.CustomerCache;
 import com.aurumx.dto.request.AddCreditCardRequest;
 import com.aurumx.entity.CreditCard;
 import com.aurumx.entity.Customer;
@@ -19,6 +20,8 @@ public class CreditCardService {
     
     private final CreditCardRepository creditCardRepository;
     private final CustomerRepository customerRepository;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final CustomerCache customerCache;
     
     @Transactional
     public CreditCard addCreditCard(AddCreditCardRequest request) {
@@ -35,7 +38,12 @@ public class CreditCardService {
         creditCard.setCardHolderName(request.getCardHolderName());
         creditCard.setExpiryDate(request.getExpiryDate());
         
-        return creditCardRepository.save(creditCard);
+        CreditCard savedCard = creditCardRepository.save(creditCard);
+        customerSearchIndex.cardAdded(customer.getId(), savedCard.getCardNumber());
+        // The balance view lists the customer's cards
+        customerCache.invalidate(customer.getId());
+        
+        return savedCard;
     }
     
     public List<CreditCard> getCustomerCreditCards(Long customerId) {
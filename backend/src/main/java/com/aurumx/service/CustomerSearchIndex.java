@@ -0,0 +1,370 @@
+package com.aurumx.service;
+
+import com.aurumx.config.CustomerSearchConfig;
+import com.aurumx.entity.Customer;
+import com.aurumx.repository.CreditCardRepository;
+import com.aurumx.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory trigram index over active customers' name, email, phone and card numbers
+ * Substring searches intersect the posting lists of the term's trigrams and verify the
+ * few remaining candidates, instead of a LIKE '%term%' scan of customer and credit_card.
+ * Until the first build has finished, isReady() is false and callers query the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerSearchIndex {
+    
+    private final CustomerRepository customerRepository;
+    private final CreditCardRepository creditCardRepository;
+    private final CustomerSearchConfig searchConfig;
+    
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Index index = new Index();
+    private volatile boolean ready;
+    // Changes applied while a rebuild is loading, replayed onto the new index before it is swapped in
+    private List<Consumer<Index>> pendingChanges;
+    
+    public boolean isReady() {
+        return ready && searchConfig.isEnabled();
+    }
+    
+    /**
+     * Ids of customers whose name, email or phone contains the term (case-insensitive), ascending
+     */
+    public List<Long> searchCustomers(String term) {
+        return index.search(normalize(term), false);
+    }
+    
+    /**
+     * Ids of customers with a card number containing the digits, ascending
+     */
+    public List<Long> searchByCardNumber(String cardNumber) {
+        return index.search(normalize(cardNumber), true);
+    }
+    
+    public void customerSaved(Customer customer) {
+        Long id = customer.getId();
+        String text = documentText(customer.getName(), customer.getEmail(), customer.getPhone());
+        afterCommit(index -> index.putCustomer(id, text));
+    }
+    
+    public void customerDeleted(Long customerId) {
+        afterCommit(index -> index.removeCustomer(customerId));
+    }
+    
+    public void cardAdded(Long customerId, String cardNumber) {
+        String normalized = normalize(cardNumber);
+        afterCommit(index -> index.addCard(customerId, normalized));
+    }
+    
+    @Scheduled(initialDelay = 0, fixedDelayString = "${aurumx.customer-search.rebuild-interval-ms:900000}")
+    public void rebuildPeriodically() {
+        if (searchConfig.isEnabled()) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Load a fresh index from the database and swap it in
+     * Readers keep using the previous index (or the database on a cold start) meanwhile
+     */
+    public void rebuild() {
+        // Not synchronized: the load below runs queries, which would pin a virtual thread's carrier
+        rebuildLock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            
+            Index fresh;
+            try {
+                fresh = load();
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+                log.error("Failed to build customer search index", ex);
+                return;
+            }
+            
+            synchronized (this) {
+                pendingChanges.forEach(change -> change.accept(fresh));
+                pendingChanges = null;
+                index = fresh;
+                ready = true;
+            }
+            log.info("Built customer search index: {} customers in {} ms",
+                    fresh.size(), System.currentTimeMillis() - started);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    private Index load() {
+        Index fresh = new Index();
+        PageRequest batch = PageRequest.of(0, searchConfig.getLoadBatchSize());
+        
+        long afterId = Long.MIN_VALUE;
+        List<CustomerRepository.SearchFields> customers;
+        do {
+            customers = customerRepository.findSearchFieldsAfter(afterId, batch);
+            for (CustomerRepository.SearchFields customer : customers) {
+                fresh.putCustomer(customer.getId(),
+                        documentText(customer.getName(), customer.getEmail(), customer.getPhone()));
+                afterId = customer.getId();
+            }
+        } while (customers.size() == batch.getPageSize());
+        
+        afterId = Long.MIN_VALUE;
+        List<CreditCardRepository.CardNumberRef> cards;
+        do {
+            cards = creditCardRepository.findCardNumbersAfter(afterId, batch);
+            for (CreditCardRepository.CardNumberRef card : cards) {
+                fresh.addCard(card.getCustomerId(), normalize(card.getCardNumber()));
+                afterId = card.getId();
+            }
+        } while (cards.size() == batch.getPageSize());
+        
+        return fresh;
+    }
+    
+    /**
+     * Apply a change once the surrounding transaction commits, or right away outside one
+     */
+    private void afterCommit(Consumer<Index> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+    
+    private synchronized void apply(Consumer<Index> change) {
+        change.accept(index);
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+    
+    private static String documentText(String name, String email, String phone) {
+        return normalize(name) + Index.FIELD_SEPARATOR + normalize(email) + Index.FIELD_SEPARATOR + normalize(phone);
+    }
+    
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Documents plus trigram posting lists, guarded by a read/write lock
+     * Entries of deleted customers stay in the posting lists until the next rebuild;
+     * they are dropped when candidates are verified against the documents
+     */
+    private static final class Index {
+        
+        static final char FIELD_SEPARATOR = '\u0001';
+        
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, Document> documents = new HashMap<>();
+        private final Map<String, PostingList> textPostings = new HashMap<>();
+        private final Map<String, PostingList> cardPostings = new HashMap<>();
+        
+        private record Document(String text, String cards) {
+            String field(boolean cardField) {
+                return cardField ? cards : text;
+            }
+        }
+        
+        int size() {
+            lock.readLock().lock();
+            try {
+                return documents.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        void putCustomer(Long id, String text) {
+            lock.writeLock().lock();
+            try {
+                Document existing = documents.get(id);
+                documents.put(id, new Document(text, existing != null ? existing.cards() : ""));
+                addTrigrams(textPostings, id, text);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        void removeCustomer(Long id) {
+            lock.writeLock().lock();
+            try {
+                documents.remove(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        void addCard(Long customerId, String cardNumber) {
+            lock.writeLock().lock();
+            try {
+                Document existing = documents.get(customerId);
+                if (existing == null || containsField(existing.cards(), cardNumber)) {
+                    return;
+                }
+                String cards = existing.cards().isEmpty() ? cardNumber : existing.cards() + FIELD_SEPARATOR + cardNumber;
+                documents.put(customerId, new Document(existing.text(), cards));
+                addTrigrams(cardPostings, customerId, cardNumber);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        List<Long> search(String term, boolean cardField) {
+            lock.readLock().lock();
+            try {
+                return term.length() < 3 ? scan(term, cardField) : lookup(term, cardField);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        /**
+         * Terms shorter than a trigram cannot use the postings, check every document
+         */
+        private List<Long> scan(String term, boolean cardField) {
+            List<Long> matches = new ArrayList<>();
+            documents.forEach((id, document) -> {
+                if (document.field(cardField).contains(term)) {
+                    matches.add(id);
+                }
+            });
+            Collections.sort(matches);
+            return matches;
+        }
+        
+        private List<Long> lookup(String term, boolean cardField) {
+            Map<String, PostingList> postings = cardField ? cardPostings : textPostings;
+            
+            List<PostingList> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                PostingList list = postings.get(term.substring(i, i + 3));
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            
+            // Walk the shortest list; every other trigram must contain the candidate too
+            PostingList shortest = lists.get(0);
+            List<Long> matches = new ArrayList<>();
+            for (int i = 0; i < shortest.size(); i++) {
+                long id = shortest.get(i);
+                if (!containsInAll(lists, id)) {
+                    continue;
+                }
+                Document document = documents.get(id);
+                if (document != null && document.field(cardField).contains(term)) {
+                    matches.add(id);
+                }
+            }
+            return matches;
+        }
+        
+        private static boolean containsInAll(List<PostingList> lists, long id) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private static boolean containsField(String fields, String value) {
+            for (String field : fields.split(String.valueOf(FIELD_SEPARATOR))) {
+                if (field.equals(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private static void addTrigrams(Map<String, PostingList> postings, long id, String text) {
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                String trigram = text.substring(i, i + 3);
+                if (trigram.indexOf(FIELD_SEPARATOR) < 0) {
+                    postings.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sorted set of customer ids backed by a primitive array
+     * Ids mostly arrive in ascending order, which makes add an append
+     */
+    private static final class PostingList {
+        
+        private long[] ids = new long[4];
+        private int size;
+        
+        int size() {
+            return size;
+        }
+        
+        long get(int index) {
+            return ids[index];
+        }
+        
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+        
+        void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                append(id);
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            int insertAt = -position - 1;
+            ensureCapacity();
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+        
+        private void append(long id) {
+            ensureCapacity();
+            ids[size++] = id;
+        }
+        
+        private void ensureCapacity() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+}
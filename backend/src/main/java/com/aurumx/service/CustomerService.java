@@ -1,17 +1,21 @@
 package com.aurumx.service;
 
+import com.aurumx.cache.CustomerCache;
 import com.aurumx.config.CustomerConfig;
+import com.aurumx.config.PaginationConfig;
 import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.dto.response.CursorPage;
 import com.aurumx.dto.response.CustomerResponse;
 import com.aurumx.entity.Customer;
-import com.aurumx.entity.Reward;
 import com.aurumx.enums.CustomerType;
 import com.aurumx.exception.BusinessRuleViolationException;
 import com.aurumx.exception.ResourceNotFoundException;
 import com.aurumx.repository.CustomerRepository;
-import com.aurumx.repository.RewardRepository;
+import com.aurumx.util.Cursors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import org.springframework.stereotype.Service;
@@ -20,14 +24,22 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
     
     private final CustomerRepository customerRepository;
-    private final RewardRepository rewardRepository;
+    private final RewardSummaryService rewardSummaryService;
     private final CustomerConfig customerConfig;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final PaginationConfig paginationConfig;
+    private final CustomerCache customerCache;
     
     @Transactional
     public CustomerResponse createCustomer(CreateCustomerRequest request) {
@@ -50,29 +62,57 @@ public class CustomerService {
         Customer savedCustomer = customerRepository.save(customer);
         
         // Reward account will be initialized per credit card when transactions are processed
+        rewardSummaryService.initialize(savedCustomer.getId());
+        customerSearchIndex.customerSaved(savedCustomer);
+        customerCache.invalidate(savedCustomer.getId());
         
         return mapToResponse(savedCustomer);
     }
     
     public Page<CustomerResponse> getAllCustomers(Pageable pageable) {
-        return customerRepository.findByDeletedFalse(pageable)
-                .map(this::mapToResponse);
+        return mapPageToResponse(customerRepository.findByDeletedFalse(pageable));
+    }
+    
+    /**
+     * Keyset pagination by id; no count query and constant cost however deep the client scrolls
+     */
+    public CursorPage<CustomerResponse> getAllCustomers(String cursor, int size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        long afterId = cursor == null || cursor.isBlank() ? Long.MIN_VALUE : Cursors.toLong(Cursors.decode(cursor, 1)[0]);
+        
+        List<Customer> rows = customerRepository.findByDeletedFalseAndIdGreaterThanOrderByIdAsc(
+                afterId, PageRequest.of(0, pageSize + 1));
+        
+        boolean hasNext = rows.size() > pageSize;
+        List<Customer> customers = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? Cursors.encode(customers.get(customers.size() - 1).getId()) : null;
+        return new CursorPage<>(mapToResponses(customers), customers.size(), nextCursor, hasNext);
     }
     
     public CustomerResponse getCustomerById(Long id) {
-        Customer customer = customerRepository.findByIdAndDeletedFalse(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + id));
-        return mapToResponse(customer);
+        return customerCache.getCustomer(id, () -> {
+            Customer customer = customerRepository.findByIdAndDeletedFalse(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + id));
+            return mapToResponse(customer);
+        });
     }
     
+    /**
+     * Matches name, email or phone
+     * Served from the in-memory index once it is loaded, from the database before that
+     */
     public Page<CustomerResponse> searchByName(String name, Pageable pageable) {
-        return customerRepository.searchByName(name, pageable)
-                .map(this::mapToResponse);
+        if (customerSearchIndex.isReady()) {
+            return mapPageToResponse(loadPage(customerSearchIndex.searchCustomers(name), pageable));
+        }
+        return mapPageToResponse(customerRepository.searchByName(name, pageable));
     }
     
     public Page<CustomerResponse> searchByCardNumber(String cardNumber, Pageable pageable) {
-        return customerRepository.searchByCardNumber(cardNumber, pageable)
-                .map(this::mapToResponse);
+        if (customerSearchIndex.isReady()) {
+            return mapPageToResponse(loadPage(customerSearchIndex.searchByCardNumber(cardNumber), pageable));
+        }
+        return mapPageToResponse(customerRepository.searchByCardNumber(cardNumber, pageable));
     }
     
     @Transactional
@@ -82,6 +122,8 @@ public class CustomerService {
         
         customer.setDeleted(true);
         customerRepository.save(customer);
+        customerSearchIndex.customerDeleted(id);
+        customerCache.invalidate(id);
     }
     
     /**
@@ -90,7 +132,7 @@ public class CustomerService {
      * @param associationDate Customer's association date
      * @return CustomerType REGULAR or PREMIUM
      */
-    private CustomerType calculateCustomerType(LocalDate associationDate) {
+    CustomerType calculateCustomerType(LocalDate associationDate) {
         int yearsAssociated = Period.between(associationDate, LocalDate.now()).getYears();
         
         if (yearsAssociated >= customerConfig.getPremiumAssociationYears()) {
@@ -99,12 +141,56 @@ public class CustomerService {
         return CustomerType.REGULAR;
     }
     
+    /**
+     * Fetch one page of the matched ids by primary key, keeping the index order
+     */
+    private Page<Customer> loadPage(List<Long> matchedIds, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), matchedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), matchedIds.size());
+        List<Long> pageIds = matchedIds.subList(from, to);
+        
+        Map<Long, Customer> customers = customerRepository.findAllById(pageIds).stream()
+                .filter(customer -> !customer.isDeleted())
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        
+        List<Customer> content = pageIds.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, matchedIds.size());
+    }
+    
+    /**
+     * Map a page of customers with their balances fetched in one query,
+     * so a listing costs the same number of queries regardless of page size
+     */
+    private Page<CustomerResponse> mapPageToResponse(Page<Customer> customers) {
+        return new PageImpl<>(mapToResponses(customers.getContent()), customers.getPageable(), customers.getTotalElements());
+    }
+    
+    private List<CustomerResponse> mapToResponses(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Long> customerIds = customers.stream()
+                .map(Customer::getId)
+                .toList();
+        
+        Map<Long, BigDecimal> balances = rewardSummaryService.getPointsBalances(customerIds);
+        
+        return customers.stream()
+                .map(customer -> mapToResponse(customer, balances.getOrDefault(customer.getId(), BigDecimal.ZERO)))
+                .toList();
+    }
+    
     private CustomerResponse mapToResponse(Customer customer) {
-        BigDecimal rewardBalance = rewardRepository.findByCreditCard_CustomerId(customer.getId())
-                .stream()
-                .map(Reward::getPointsBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal rewardBalance = rewardSummaryService.getSummary(customer.getId()).getPointsBalance();
         
+        return mapToResponse(customer, rewardBalance);
+    }
+    
+    private CustomerResponse mapToResponse(Customer customer, BigDecimal rewardBalance) {
         return new CustomerResponse(
                 customer.getId(),
                 customer.getName(),
@@ -0,0 +1,178 @@
+package com.aurumx.service;
+
+import com.aurumx.config.IdempotencyConfig;
+import com.aurumx.entity.IdempotencyRecord;
+import com.aurumx.exception.BusinessRuleViolationException;
+import com.aurumx.exception.IdempotencyKeyConflictException;
+import com.aurumx.metrics.AurumxMetrics;
+import com.aurumx.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * At-most-once execution of retried requests carrying an Idempotency-Key header
+ * The key is claimed by inserting its record in the same transaction as the request's changes,
+ * and the response is stored in that record before commit. A retry after commit gets the stored
+ * response back; a retry while the first request is still running waits on the unique key and
+ * then replays it. A failed request leaves no record, so its retry executes again.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    
+    public static final String HEADER = "Idempotency-Key";
+    
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+    
+    private final IdempotencyRecordRepository recordRepository;
+    private final IdempotencyConfig idempotencyConfig;
+    private final ObjectMapper objectMapper;
+    private final AurumxMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              IdempotencyConfig idempotencyConfig,
+                              ObjectMapper objectMapper,
+                              AurumxMetrics metrics,
+                              PlatformTransactionManager transactionManager) {
+        this.recordRepository = recordRepository;
+        this.idempotencyConfig = idempotencyConfig;
+        this.objectMapper = objectMapper;
+        this.metrics = metrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Run action in a new transaction unless key was already used for the same request
+     * Must be called outside a transaction; action joins the one opened here
+     * @param key value of the Idempotency-Key header, null to always execute
+     * @param request operation and parameters that identify the request, e.g. "POST /cart/5/redeem?creditCardId=7"
+     */
+    public <T> T execute(String key, String request, TypeReference<T> responseType, Supplier<T> action) {
+        return execute(key, request, null, responseType, action);
+    }
+    
+    /**
+     * Same as execute without state, but a retry also has to find the state the first request acted on
+     * A retry that finds no state (e.g. an empty cart after the redemption) replays the response;
+     * one that finds a different state was sent for a different request.
+     * @param state the server-side input of the request, e.g. the cart lines being redeemed; null for none
+     */
+    public <T> T execute(String key, String request, String state, TypeReference<T> responseType, Supplier<T> action) {
+        if (key == null || !idempotencyConfig.isEnabled()) {
+            return transactionTemplate.execute(status -> action.get());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessRuleViolationException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        
+        String principal = currentPrincipal();
+        String requestHash = sha256(request);
+        String stateHash = state != null ? sha256(state) : null;
+        for (int attempt = 1; ; attempt++) {
+            Optional<IdempotencyRecord> existing = recordRepository.findByPrincipalAndIdempotencyKey(principal, key);
+            LocalDateTime now = LocalDateTime.now();
+            boolean expired = existing.isPresent() && !existing.get().getExpiresAt().isAfter(now);
+            if (existing.isPresent() && !expired) {
+                return replay(existing.get(), requestHash, stateHash, responseType);
+            }
+            
+            try {
+                return transactionTemplate.execute(status -> {
+                    IdempotencyRecord record = claim(principal, key, requestHash, stateHash, expired);
+                    T response = action.get();
+                    // Values generated on insert (ids, timestamps) must be in the stored copy too
+                    recordRepository.flush();
+                    record.setResponseBody(write(response));
+                    return response;
+                });
+            } catch (KeyTakenException ex) {
+                // A concurrent request with this key committed first; replay it on the next pass
+                if (attempt >= MAX_CLAIM_ATTEMPTS) {
+                    throw new IdempotencyKeyConflictException(
+                            "A request with this " + HEADER + " is still in progress", true);
+                }
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${aurumx.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Integer purged = transactionTemplate.execute(status -> recordRepository.deleteAllExpired(LocalDateTime.now()));
+        log.debug("Purged {} expired idempotency keys", purged);
+    }
+    
+    private IdempotencyRecord claim(String principal, String key, String requestHash, String stateHash, boolean expired) {
+        if (expired) {
+            recordRepository.deleteExpired(principal, key, LocalDateTime.now());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord(null, principal, key, requestHash, stateHash, null,
+                now, now.plusSeconds(idempotencyConfig.getTtlSeconds()));
+        try {
+            // On MySQL the insert waits while another transaction holds the same key
+            return recordRepository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException ex) {
+            throw new KeyTakenException();
+        }
+    }
+    
+    private <T> T replay(IdempotencyRecord record, String requestHash, String stateHash, TypeReference<T> responseType) {
+        boolean stateChanged = stateHash != null && record.getStateHash() != null
+                && !record.getStateHash().equals(stateHash);
+        if (!record.getRequestHash().equals(requestHash) || stateChanged) {
+            throw new IdempotencyKeyConflictException(
+                    HEADER + " was already used for a different request", false);
+        }
+        try {
+            T response = objectMapper.readValue(record.getResponseBody(), responseType);
+            metrics.idempotentReplay();
+            return response;
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Stored response of idempotency record " + record.getId() + " is unreadable", ex);
+        }
+    }
+    
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Response cannot be stored for replay", ex);
+        }
+    }
+    
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+    
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+    
+    private static class KeyTakenException extends RuntimeException {
+    }
+}
@@ -5,26 +5,157 @@ import com.aurumx.entity.RewardItem;
 import com.aurumx.repository.RewardCategoryRepository;
 import com.aurumx.repository.RewardItemRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Serves the reward catalog from an immutable in-memory snapshot
+ * The snapshot is rebuilt periodically (or on demand) and swapped atomically
+ * only when its content changed, so browsing the catalog never touches the database
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class RewardCatalogService {
     
     private final RewardCategoryRepository rewardCategoryRepository;
     private final RewardItemRepository rewardItemRepository;
     
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile CatalogSnapshot snapshot;
+    
+    /**
+     * @param version  incremented every time a changed catalog is swapped in
+     * @param etag     strong ETag derived from the catalog content
+     */
+    public record CatalogSnapshot(long version,
+                                  String etag,
+                                  List<RewardCategory> categories,
+                                  List<RewardItem> availableItems,
+                                  Map<Long, List<RewardItem>> itemsByCategory,
+                                  Map<Long, RewardItem> itemsById) {
+        
+        public List<RewardItem> getItemsByCategory(Long categoryId) {
+            return itemsByCategory.getOrDefault(categoryId, List.of());
+        }
+        
+        /**
+         * Available item by id; empty for unavailable items and items added since the snapshot was taken
+         */
+        public Optional<RewardItem> findItem(Long itemId) {
+            return Optional.ofNullable(itemsById.get(itemId));
+        }
+    }
+    
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        return current != null ? current : refresh();
+    }
+    
     public List<RewardCategory> getAllCategories() {
-        return rewardCategoryRepository.findAllByOrderByDisplayOrderAsc();
+        return getSnapshot().categories();
     }
     
     public List<RewardItem> getItemsByCategory(Long categoryId) {
-        return rewardItemRepository.findByCategoryIdAndAvailableTrue(categoryId);
+        return getSnapshot().getItemsByCategory(categoryId);
     }
     
     public List<RewardItem> getAllAvailableItems() {
-        return rewardItemRepository.findByAvailableTrue();
+        return getSnapshot().availableItems();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+    
+    @Scheduled(fixedDelayString = "${aurumx.catalog.refresh-interval-ms:60000}",
+               initialDelayString = "${aurumx.catalog.refresh-interval-ms:60000}")
+    public void refreshPeriodically() {
+        refresh();
+    }
+    
+    /**
+     * Reload the catalog and swap the snapshot if anything changed
+     * @return the snapshot in effect afterwards
+     */
+    @Transactional(readOnly = true)
+    public CatalogSnapshot refresh() {
+        // A lock rather than synchronized, so a virtual thread waiting on the queries below does not pin its carrier
+        refreshLock.lock();
+        try {
+            return reload();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+    
+    private CatalogSnapshot reload() {
+        List<RewardCategory> categories = rewardCategoryRepository.findAllByOrderByDisplayOrderAsc();
+        List<RewardItem> items = rewardItemRepository.findAvailableWithCategory();
+        
+        String etag = computeEtag(categories, items);
+        CatalogSnapshot current = snapshot;
+        if (current != null && current.etag().equals(etag)) {
+            return current;
+        }
+        
+        Map<Long, List<RewardItem>> byCategory = new LinkedHashMap<>();
+        Map<Long, RewardItem> byId = new HashMap<>();
+        for (RewardItem item : items) {
+            byCategory.computeIfAbsent(item.getCategory().getId(), id -> new ArrayList<>()).add(item);
+            byId.put(item.getId(), item);
+        }
+        byCategory.replaceAll((id, categoryItems) -> List.copyOf(categoryItems));
+        
+        long version = current != null ? current.version() + 1 : 1;
+        CatalogSnapshot updated = new CatalogSnapshot(
+                version,
+                etag,
+                List.copyOf(categories),
+                List.copyOf(items),
+                Collections.unmodifiableMap(byCategory),
+                Collections.unmodifiableMap(byId)
+        );
+        snapshot = updated;
+        
+        log.info("Loaded reward catalog version {}: {} categories, {} items", version, categories.size(), items.size());
+        return updated;
+    }
+    
+    private String computeEtag(List<RewardCategory> categories, List<RewardItem> items) {
+        StringBuilder content = new StringBuilder();
+        for (RewardCategory category : categories) {
+            content.append('C').append(category.getId()).append('|')
+                    .append(category.getName()).append('|')
+                    .append(category.getDescription()).append('|')
+                    .append(category.getDisplayOrder()).append('\n');
+        }
+        for (RewardItem item : items) {
+            content.append('I').append(item.getId()).append('|')
+                    .append(item.getCategory().getId()).append('|')
+                    .append(item.getName()).append('|')
+                    .append(item.getDescription()).append('|')
+                    .append(item.getPointsCost()).append('|')
+                    .append(item.isAvailable()).append('\n');
+        }
+        
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -1,24 +1,30 @@
 package com.aurumx.service;
 
+import com.aurumx.cache.CustomerCache;
 import com.aurumx.config.RewardConfig;
 import com.aurumx.dto.response.RewardBalanceResponse;
 import com.aurumx.entity.Customer;
+import com.aurumx.entity.CustomerRewardSummary;
 import com.aurumx.entity.Reward;
 import com.aurumx.entity.RewardCategory;
 import com.aurumx.entity.RewardItem;
 import com.aurumx.entity.Transaction;
 import com.aurumx.enums.CustomerType;
 import com.aurumx.exception.ResourceNotFoundException;
+import com.aurumx.metrics.AurumxMetrics;
+import com.aurumx.repository.CreditCardRepository;
 import com.aurumx.repository.CustomerRepository;
 import com.aurumx.repository.RewardRepository;
 import com.aurumx.repository.TransactionRepository;
+import com.aurumx.util.Points;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -30,27 +36,36 @@ public class RewardService {
     private final RewardRepository rewardRepository;
     private final CustomerRepository customerRepository;
     private final TransactionRepository transactionRepository;
-    private final com.aurumx.repository.RewardCategoryRepository rewardCategoryRepository;
-    private final com.aurumx.repository.RewardItemRepository rewardItemRepository;
-    private final com.aurumx.repository.CreditCardRepository creditCardRepository;
+    private final RewardCatalogService rewardCatalogService;
+    private final CreditCardRepository creditCardRepository;
     private final com.aurumx.repository.RedemptionHistoryRepository redemptionHistoryRepository;
+    private final RewardSummaryService rewardSummaryService;
+    private final AccrualPartitionService accrualPartitionService;
+    private final CustomerCache customerCache;
     private final RewardConfig rewardConfig;
+    private final AurumxMetrics metrics;
     
     /**
      * Process unprocessed transactions for a customer and calculate rewards
      * Uses configuration for reward percentages based on customer type
      * Transactions can only be processed once (idempotent)
+     * READ COMMITTED so the reads after the partition lock see accruals committed by other nodes
      */
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public RewardBalanceResponse processTransactions(Long customerId) {
         Customer customer = customerRepository.findByIdAndDeletedFalse(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+        accrualPartitionService.lockCustomerForAccrual(customerId);
+        
+        if (rewardConfig.isBulkAccrual()) {
+            return processTransactionsInBulk(customer);
+        }
         
         List<Transaction> unprocessedTransactions = transactionRepository.findUnprocessedByCustomerId(customerId);
         
         if (unprocessedTransactions.isEmpty()) {
-            log.info("No unprocessed transactions found for customer: {}", customerId);
-            return getRewardBalance(customerId);
+            log.debug("No unprocessed transactions found for customer: {}", customerId);
+            return loadRewardBalance(customerId);
         }
         
         // Group transactions by credit card to update card-specific rewards
@@ -58,11 +73,9 @@ public class RewardService {
                 .filter(t -> t.getCreditCard() != null)
                 .collect(java.util.stream.Collectors.groupingBy(Transaction::getCreditCard));
                 
-        BigDecimal totalNewPoints = BigDecimal.ZERO;
+        long totalNewPoints = Points.ZERO;
         
-        int rewardPercentage = customer.getCustomerType() == CustomerType.PREMIUM 
-                ? rewardConfig.getPremiumPercentage() 
-                : rewardConfig.getRegularPercentage();
+        int rewardPercentage = getRewardPercentage(customer);
         
         for (java.util.Map.Entry<com.aurumx.entity.CreditCard, List<Transaction>> entry : transactionsByCard.entrySet()) {
             com.aurumx.entity.CreditCard card = entry.getKey();
@@ -70,155 +83,221 @@ public class RewardService {
             
     
             // Get or create reward account for this CARD
-            Reward reward = rewardRepository.findByCreditCardId(card.getId())
-                    .orElseGet(() -> {
-                        Reward newReward = new Reward();
-                        newReward.setCreditCard(card);
-                        newReward.setCustomer(card.getCustomer()); // Set customer to satisfy DB constraint
-                        newReward.setPointsBalance(BigDecimal.ZERO);
-                        newReward.setLifetimeEarned(BigDecimal.ZERO);
-                        return rewardRepository.save(newReward);
-                    });
-            
-            BigDecimal cardNewPoints = BigDecimal.ZERO;
-            
-            for (Transaction transaction : cardTransactions) {
-                BigDecimal rewardPoints = transaction.getAmount()
-                        .multiply(BigDecimal.valueOf(rewardPercentage))
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-                
-                cardNewPoints = cardNewPoints.add(rewardPoints);
-                
-                transaction.setProcessed(true);
-                transaction.setRewardPoints(rewardPoints);
-            }
+            Reward reward = findOrCreateReward(card, customer);
             
-            reward.setPointsBalance(reward.getPointsBalance().add(cardNewPoints));
-            reward.setLifetimeEarned(reward.getLifetimeEarned().add(cardNewPoints));
-            reward.setLastUpdated(LocalDateTime.now());
+            long cardNewPoints = accrue(cardTransactions, rewardPercentage);
+            credit(reward, cardNewPoints);
             
             rewardRepository.save(reward);
-            totalNewPoints = totalNewPoints.add(cardNewPoints);
+            totalNewPoints = Points.add(totalNewPoints, cardNewPoints);
         }
         
         transactionRepository.saveAll(unprocessedTransactions);
+        rewardSummaryService.recordAccrual(customerId, totalNewPoints);
         
-        log.info("Processed rewards for customer {}. Total new points: {}", customer.getName(), totalNewPoints);
+        log.info("Processed rewards for customer {}. Total new points: {}", customer.getName(), Points.toBigDecimal(totalNewPoints));
         
-        return getRewardBalance(customerId);
+        return loadRewardBalance(customerId);
     }
 
     /**
      * Process unprocessed transactions for a specific credit card
      */
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public RewardBalanceResponse processTransactionsByCard(Long cardId) {
-        com.aurumx.entity.CreditCard card = creditCardRepository.findById(cardId)
+        return loadRewardBalance(accrueCard(cardId));
+    }
+    
+    /**
+     * Accrue a card's unprocessed transactions without building a balance response
+     * Used by the nightly accrual job and the asynchronous accrual pipeline
+     * @return id of the card's customer
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Long accrueCard(Long cardId) {
+        accrualPartitionService.lockForAccrual(List.of(cardId));
+        com.aurumx.entity.CreditCard card = creditCardRepository.findWithCustomerById(cardId)
                 .orElseThrow(() -> new ResourceNotFoundException("Credit card not found with id: " + cardId));
         
         Customer customer = card.getCustomer();
         
+        if (rewardConfig.isBulkAccrual()) {
+            long cardNewPoints = accrueCardInBulk(card, customer);
+            rewardSummaryService.recordAccrual(customer.getId(), cardNewPoints);
+            log.info("Bulk processed rewards for card {}. New points: {}", cardId, Points.toBigDecimal(cardNewPoints));
+            return customer.getId();
+        }
+        
         List<Transaction> unprocessedTransactions = transactionRepository.findByCreditCardIdAndProcessedFalse(cardId);
         
         if (unprocessedTransactions.isEmpty()) {
-            log.info("No unprocessed transactions found for card: {}", cardId);
-            return getRewardBalance(customer.getId());
+            log.debug("No unprocessed transactions found for card: {}", cardId);
+            return customer.getId();
         }
         
-        int rewardPercentage = customer.getCustomerType() == CustomerType.PREMIUM 
-                ? rewardConfig.getPremiumPercentage() 
-                : rewardConfig.getRegularPercentage();
+        int rewardPercentage = getRewardPercentage(customer);
         
         // Get or create reward account for this CARD
-        Reward reward = rewardRepository.findByCreditCardId(cardId)
-                .orElseGet(() -> {
-                    Reward newReward = new Reward();
-                    newReward.setCreditCard(card);
-                    newReward.setCustomer(customer);
-                    newReward.setPointsBalance(BigDecimal.ZERO);
-                    newReward.setLifetimeEarned(BigDecimal.ZERO);
-                    return rewardRepository.save(newReward);
-                });
+        Reward reward = findOrCreateReward(card, customer);
         
-        BigDecimal cardNewPoints = BigDecimal.ZERO;
-        
-        for (Transaction transaction : unprocessedTransactions) {
-            BigDecimal rewardPoints = transaction.getAmount()
-                    .multiply(BigDecimal.valueOf(rewardPercentage))
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-            
-            cardNewPoints = cardNewPoints.add(rewardPoints);
-            
-            transaction.setProcessed(true);
-            transaction.setRewardPoints(rewardPoints);
-        }
-        
-        reward.setPointsBalance(reward.getPointsBalance().add(cardNewPoints));
-        reward.setLifetimeEarned(reward.getLifetimeEarned().add(cardNewPoints));
-        reward.setLastUpdated(LocalDateTime.now());
+        long cardNewPoints = accrue(unprocessedTransactions, rewardPercentage);
+        credit(reward, cardNewPoints);
         
         rewardRepository.save(reward);
         transactionRepository.saveAll(unprocessedTransactions);
+        rewardSummaryService.recordAccrual(customer.getId(), cardNewPoints);
         
-        log.info("Processed rewards for card {}. New points: {}", cardId, cardNewPoints);
+        log.info("Processed rewards for card {}. New points: {}", cardId, Points.toBigDecimal(cardNewPoints));
         
-        return getRewardBalance(customer.getId());
+        return customer.getId();
     }
     
-    public RewardBalanceResponse getRewardBalance(Long customerId) {
-        Customer customer = customerRepository.findByIdAndDeletedFalse(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+    /**
+     * Set-based variant of processTransactions, enabled by aurumx.reward.bulk-accrual
+     * Points are computed and written by the database with a few statements per card,
+     * so no Transaction entities are loaded into memory
+     */
+    private RewardBalanceResponse processTransactionsInBulk(Customer customer) {
+        long totalNewPoints = Points.ZERO;
         
-        List<com.aurumx.entity.CreditCard> cards = creditCardRepository.findByCustomerId(customerId);
-        List<Reward> rewards = rewardRepository.findByCreditCard_CustomerId(customerId);
+        for (com.aurumx.entity.CreditCard card : creditCardRepository.findByCustomerId(customer.getId())) {
+            totalNewPoints = Points.add(totalNewPoints, accrueCardInBulk(card, customer));
+        }
+        rewardSummaryService.recordAccrual(customer.getId(), totalNewPoints);
         
-        // Map rewards by card ID for easy lookup
-        java.util.Map<Long, Reward> rewardMap = rewards.stream()
-                .collect(java.util.stream.Collectors.toMap(r -> r.getCreditCard().getId(), r -> r));
+        log.info("Bulk processed rewards for customer {}. Total new points: {}", customer.getName(), Points.toBigDecimal(totalNewPoints));
         
-        BigDecimal totalPoints = BigDecimal.ZERO;
-        BigDecimal totalLifetime = BigDecimal.ZERO;
-        java.util.List<RewardBalanceResponse.CardRewardDto> cardRewards = new java.util.ArrayList<>();
+        return loadRewardBalance(customer.getId());
+    }
+    
+    /**
+     * Accrue all unprocessed transactions of one card in bulk
+     * Rounding is done by the database with ROUND(amount * pct / 100, 2), which matches HALF_UP for positive amounts
+     * @return points credited to the card's reward account, in hundredths
+     */
+    private long accrueCardInBulk(com.aurumx.entity.CreditCard card, Customer customer) {
+        BigDecimal percentage = BigDecimal.valueOf(getRewardPercentage(customer));
         
-        for (com.aurumx.entity.CreditCard card : cards) {
-            Reward reward = rewardMap.get(card.getId());
-            BigDecimal points = (reward != null) ? reward.getPointsBalance() : BigDecimal.ZERO;
-            
-            if (reward != null) {
-                totalPoints = totalPoints.add(reward.getPointsBalance());
-                totalLifetime = totalLifetime.add(reward.getLifetimeEarned());
-            }
+        TransactionRepository.AccrualWindow window = transactionRepository.findAccrualWindow(card.getId(), percentage);
+        if (window.getTransactionCount() == 0) {
+            return Points.ZERO;
+        }
+        
+        findOrCreateReward(card, customer);
+        
+        int updated = transactionRepository.markProcessedUpTo(card.getId(), window.getMaxId(), percentage);
+        if (updated != window.getTransactionCount()) {
+            // Another request processed some of these rows in the meantime; roll back instead of double-crediting.
+            // A server-side race, so it is answered with 409 and retried by the pipeline and the nightly job
+            throw new OptimisticLockingFailureException(
+                    "Transactions for card " + card.getId() + " were processed concurrently");
+        }
+        
+        rewardRepository.creditPoints(card.getId(), window.getTotalPoints(), LocalDateTime.now());
+        long points = Points.toHundredths(window.getTotalPoints());
+        metrics.transactionsProcessed(window.getTransactionCount(), points);
+        return points;
+    }
+    
+    /**
+     * Mark the transactions processed and set their points
+     * @return total points of the transactions, in hundredths
+     */
+    private long accrue(List<Transaction> transactions, int rewardPercentage) {
+        long total = Points.ZERO;
+        for (Transaction transaction : transactions) {
+            long rewardPoints = Points.accrue(transaction.getAmount(), rewardPercentage);
+            total = Points.add(total, rewardPoints);
             
-            cardRewards.add(new RewardBalanceResponse.CardRewardDto(
-                card.getId(),
-                maskCardNumber(card.getCardNumber()),
-                points
-            ));
+            transaction.setProcessed(true);
+            transaction.setRewardPoints(Points.toBigDecimal(rewardPoints));
         }
+        metrics.transactionsProcessed(transactions.size(), total);
+        return total;
+    }
+    
+    private void credit(Reward reward, long points) {
+        reward.setPointsBalance(Points.toBigDecimal(Points.add(Points.toHundredths(reward.getPointsBalance()), points)));
+        reward.setLifetimeEarned(Points.toBigDecimal(Points.add(Points.toHundredths(reward.getLifetimeEarned()), points)));
+        reward.setLastUpdated(LocalDateTime.now());
+    }
+    
+    private int getRewardPercentage(Customer customer) {
+        return customer.getCustomerType() == CustomerType.PREMIUM 
+                ? rewardConfig.getPremiumPercentage() 
+                : rewardConfig.getRegularPercentage();
+    }
+    
+    private Reward findOrCreateReward(com.aurumx.entity.CreditCard card, Customer customer) {
+        return rewardRepository.findByCreditCardId(card.getId())
+                .orElseGet(() -> {
+                    Reward newReward = new Reward();
+                    newReward.setCreditCard(card);
+                    newReward.setCustomer(customer); // Set customer to satisfy DB constraint
+                    newReward.setPointsBalance(BigDecimal.ZERO);
+                    newReward.setLifetimeEarned(BigDecimal.ZERO);
+                    return rewardRepository.save(newReward);
+                });
+    }
+    
+    /**
+     * Served from CustomerCache; RewardSummaryService invalidates it whenever the balance changes
+     */
+    public RewardBalanceResponse getRewardBalance(Long customerId) {
+        return customerCache.getBalance(customerId, () -> loadRewardBalance(customerId));
+    }
+    
+    /**
+     * Totals come from the maintained customer_reward_summary row,
+     * the per-card breakdown from one cards-with-balance query
+     */
+    private RewardBalanceResponse loadRewardBalance(Long customerId) {
+        Customer customer = customerRepository.findByIdAndDeletedFalse(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+        
+        CustomerRewardSummary summary = rewardSummaryService.getSummary(customerId);
         
         return new RewardBalanceResponse(
                 customer.getId(),
                 customer.getName(),
-                totalPoints,
-                totalLifetime,
-                cardRewards
+                summary.getPointsBalance(),
+                summary.getLifetimeEarned(),
+                toCardRewards(creditCardRepository.findCardPointsByCustomerId(customerId))
         );
     }
     
-    private String maskCardNumber(String cardNumber) {
+    static List<RewardBalanceResponse.CardRewardDto> toCardRewards(List<CreditCardRepository.CardPoints> cards) {
+        List<RewardBalanceResponse.CardRewardDto> cardRewards = new java.util.ArrayList<>(cards.size());
+        for (CreditCardRepository.CardPoints card : cards) {
+            cardRewards.add(new RewardBalanceResponse.CardRewardDto(
+                card.getCreditCardId(),
+                maskCardNumber(card.getCardNumber()),
+                card.getPoints() != null ? card.getPoints() : BigDecimal.ZERO
+            ));
+        }
+        return cardRewards;
+    }
+    
+    static String maskCardNumber(String cardNumber) {
         if (cardNumber == null || cardNumber.length() < 4) return "****";
         return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
     }
 
+    // Catalog reads are served from the in-memory snapshot, see RewardCatalogService
+
     public List<RewardCategory> getCategories() {
-        return rewardCategoryRepository.findAllByOrderByDisplayOrderAsc();
+        return rewardCatalogService.getAllCategories();
     }
 
     public List<RewardItem> getRewards(Long categoryId) {
         if (categoryId != null) {
-            return rewardItemRepository.findByCategoryIdAndAvailableTrue(categoryId);
+            return rewardCatalogService.getItemsByCategory(categoryId);
         }
-        return rewardItemRepository.findByAvailableTrue();
+        return rewardCatalogService.getAllAvailableItems();
+    }
+
+    public RewardCatalogService.CatalogSnapshot getCatalogSnapshot() {
+        return rewardCatalogService.getSnapshot();
     }
 
     public List<com.aurumx.entity.RedemptionHistory> getRedemptionHistory(Long customerId) {
@@ -0,0 +1,243 @@
+package com.aurumx.service;
+
+import com.aurumx.cache.CustomerCache;
+import com.aurumx.dto.response.ReconciliationResponse;
+import com.aurumx.entity.Customer;
+import com.aurumx.entity.CustomerRewardSummary;
+import com.aurumx.repository.CustomerRepository;
+import com.aurumx.repository.CustomerRewardSummaryRepository;
+import com.aurumx.repository.RewardRepository;
+import com.aurumx.util.Points;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains customer_reward_summary, the per-customer totals of all reward accounts
+ * Accrual and redemption adjust the row with a single UPDATE in the caller's transaction;
+ * reads are a primary key lookup instead of summing every Reward row.
+ * Every balance change passes through here, so this is where CustomerCache is invalidated.
+ *
+ * Writers that replace totals (rebuild, reconciliation) lock the summary row first and then read
+ * the Reward rows under READ COMMITTED. An accrual that commits before the lock is included; one
+ * still in flight adds its delta to the row afterwards, so neither overwrites the other.
+ */
+@Service
+@Slf4j
+public class RewardSummaryService {
+    
+    private static final int RECONCILE_PAGE_SIZE = 500;
+    
+    private final CustomerRewardSummaryRepository summaryRepository;
+    private final RewardRepository rewardRepository;
+    private final CustomerRepository customerRepository;
+    private final CustomerCache customerCache;
+    private final TransactionTemplate pageTransaction;
+    
+    public RewardSummaryService(CustomerRewardSummaryRepository summaryRepository,
+                                RewardRepository rewardRepository,
+                                CustomerRepository customerRepository,
+                                CustomerCache customerCache,
+                                PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.rewardRepository = rewardRepository;
+        this.customerRepository = customerRepository;
+        this.customerCache = customerCache;
+        this.pageTransaction = new TransactionTemplate(transactionManager);
+        this.pageTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+    
+    @Transactional
+    public void initialize(Long customerId) {
+        CustomerRewardSummary summary = new CustomerRewardSummary();
+        summary.setCustomerId(customerId);
+        summary.setLastUpdated(LocalDateTime.now());
+        summaryRepository.save(summary);
+    }
+    
+    /**
+     * Must be called after the Reward rows have been credited in the same transaction,
+     * so a missing summary is rebuilt including these points
+     * @param points accrued points in hundredths, see {@link Points}
+     */
+    @Transactional
+    public void recordAccrual(Long customerId, long points) {
+        if (points == Points.ZERO) {
+            return;
+        }
+        BigDecimal amount = Points.toBigDecimal(points);
+        if (summaryRepository.addAccrual(customerId, amount, LocalDateTime.now()) == 0 && !create(customerId)) {
+            // Created concurrently without this transaction's points
+            summaryRepository.addAccrual(customerId, amount, LocalDateTime.now());
+        }
+        customerCache.invalidate(customerId);
+    }
+    
+    /**
+     * Must be called after the Reward row has been debited in the same transaction
+     * @param points redeemed points in hundredths, see {@link Points}
+     */
+    @Transactional
+    public void recordRedemption(Long customerId, long points) {
+        BigDecimal amount = Points.toBigDecimal(points);
+        if (summaryRepository.subtractRedemption(customerId, amount, LocalDateTime.now()) == 0 && !create(customerId)) {
+            // Created concurrently without this transaction's debit
+            summaryRepository.subtractRedemption(customerId, amount, LocalDateTime.now());
+        }
+        customerCache.invalidate(customerId);
+    }
+    
+    /**
+     * Single-row lookup; falls back to aggregating Reward rows for customers without a summary yet
+     */
+    public CustomerRewardSummary getSummary(Long customerId) {
+        return summaryRepository.findById(customerId)
+                .orElseGet(() -> computeSummaries(List.of(customerId)).get(customerId));
+    }
+    
+    public Map<Long, BigDecimal> getPointsBalances(Collection<Long> customerIds) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        summaryRepository.findAllById(customerIds)
+                .forEach(summary -> balances.put(summary.getCustomerId(), summary.getPointsBalance()));
+        
+        if (balances.size() < customerIds.size()) {
+            List<Long> missing = customerIds.stream()
+                    .filter(id -> !balances.containsKey(id))
+                    .toList();
+            computeSummaries(missing).forEach((id, summary) -> balances.put(id, summary.getPointsBalance()));
+        }
+        return balances;
+    }
+    
+    /**
+     * Recompute the summary of a customer from its Reward rows, creating it if missing
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public CustomerRewardSummary rebuild(Long customerId) {
+        customerCache.invalidate(customerId);
+        if (create(customerId)) {
+            return summaryRepository.findById(customerId).orElseThrow();
+        }
+        CustomerRewardSummary summary = summaryRepository.lockAllById(List.of(customerId)).get(0);
+        CustomerRewardSummary correct = computeSummaries(List.of(customerId)).get(customerId);
+        summary.setPointsBalance(correct.getPointsBalance());
+        summary.setLifetimeEarned(correct.getLifetimeEarned());
+        summary.setLastUpdated(LocalDateTime.now());
+        return summary;
+    }
+    
+    /**
+     * Create the missing summary row of a customer from its Reward rows
+     * Creators serialise on the customer row and look for the summary with a locking read, so only
+     * one of them inserts it; the totals include every writer that committed before, because each
+     * of those found the row missing too and created it under the same lock.
+     * @return false if the row already existed
+     */
+    private boolean create(Long customerId) {
+        customerRepository.lockById(customerId);
+        if (!summaryRepository.lockAllById(List.of(customerId)).isEmpty()) {
+            return false;
+        }
+        CustomerRewardSummary summary = computeSummaries(List.of(customerId)).get(customerId);
+        summary.setLastUpdated(LocalDateTime.now());
+        summaryRepository.save(summary);
+        return true;
+    }
+    
+    @Scheduled(cron = "${aurumx.reward.summary-reconcile-cron:0 30 3 * * *}")
+    public void reconcileNightly() {
+        ReconciliationResponse result = reconcileAll();
+        log.info("Reconciled reward summaries. Checked: {}, rebuilt: {}",
+                result.getCustomersChecked(), result.getSummariesRebuilt());
+    }
+    
+    /**
+     * Compare every summary with the Reward rows it is derived from and rebuild the ones that drifted
+     * Works through customers a page at a time, one READ COMMITTED transaction per page that holds
+     * the page's summary rows locked while comparing and correcting them
+     */
+    public ReconciliationResponse reconcileAll() {
+        long checked = 0;
+        long rebuilt = 0;
+        int pageNumber = 0;
+        Page<Customer> page;
+        
+        do {
+            page = customerRepository.findAll(PageRequest.of(pageNumber++, RECONCILE_PAGE_SIZE, Sort.by("id")));
+            List<Long> customerIds = page.getContent().stream().map(Customer::getId).toList();
+            
+            Integer fixed = pageTransaction.execute(status -> reconcile(customerIds));
+            checked += customerIds.size();
+            rebuilt += fixed != null ? fixed : 0;
+        } while (page.hasNext());
+        
+        return new ReconciliationResponse(checked, rebuilt);
+    }
+    
+    private int reconcile(List<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return 0;
+        }
+        
+        // Locked before the Reward rows are read, so accruals committing meanwhile are not overwritten
+        Map<Long, CustomerRewardSummary> stored = summaryRepository.lockAllById(customerIds).stream()
+                .collect(Collectors.toMap(CustomerRewardSummary::getCustomerId, Function.identity()));
+        Map<Long, CustomerRewardSummary> expected = computeSummaries(customerIds);
+        
+        int fixed = 0;
+        for (Long customerId : customerIds) {
+            CustomerRewardSummary actual = stored.get(customerId);
+            CustomerRewardSummary correct = expected.get(customerId);
+            
+            if (actual == null) {
+                if (create(customerId)) {
+                    fixed++;
+                    customerCache.invalidate(customerId);
+                }
+            } else if (actual.getPointsBalance().compareTo(correct.getPointsBalance()) != 0
+                    || actual.getLifetimeEarned().compareTo(correct.getLifetimeEarned()) != 0) {
+                log.warn("Reward summary drift for customer {}: balance {} vs {}",
+                        customerId, actual.getPointsBalance(), correct.getPointsBalance());
+                actual.setPointsBalance(correct.getPointsBalance());
+                actual.setLifetimeEarned(correct.getLifetimeEarned());
+                actual.setLastUpdated(LocalDateTime.now());
+                fixed++;
+                customerCache.invalidate(customerId);
+            }
+        }
+        return fixed;
+    }
+    
+    /**
+     * Totals derived from the Reward rows, one grouped query for all given customers
+     */
+    private Map<Long, CustomerRewardSummary> computeSummaries(Collection<Long> customerIds) {
+        Map<Long, CustomerRewardSummary> summaries = new HashMap<>();
+        for (Long customerId : customerIds) {
+            CustomerRewardSummary summary = new CustomerRewardSummary();
+            summary.setCustomerId(customerId);
+            summaries.put(customerId, summary);
+        }
+        
+        for (RewardRepository.CustomerBalance balance : rewardRepository.sumBalancesByCustomerIds(customerIds)) {
+            CustomerRewardSummary summary = summaries.get(balance.getCustomerId());
+            summary.setPointsBalance(balance.getBalance());
+            summary.setLifetimeEarned(balance.getLifetimeEarned());
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,346 @@
+package com.aurumx.service;
+
+import com.aurumx.config.DataGeneratorConfig;
+import com.aurumx.config.TransactionConfig;
+import com.aurumx.dto.request.GenerateDataRequest;
+import com.aurumx.dto.response.DataGeneratorStatusResponse;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Customer;
+import com.aurumx.entity.CustomerRewardSummary;
+import com.aurumx.entity.Transaction;
+import com.aurumx.exception.BusinessRuleViolationException;
+import com.aurumx.repository.CreditCardRepository;
+import com.aurumx.repository.CustomerRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeded bulk data generator for local capacity testing
+ * Creates customers x cards per customer x transactions per card. Every customer and every card
+ * draws from its own random stream derived from the seed and its index, so the same seed and sizes
+ * produce the same rows however they are batched (dates are relative to the day of the run).
+ * Rows are written the way streaming ingestion writes them: persisted through the EntityManager and
+ * flushed as JDBC batches of ingest-batch-size rows, one database transaction per batch, so memory
+ * stays bounded however many rows are generated.
+ * Transactions are left unprocessed and publish no accrual events; run the accrual job afterwards.
+ */
+@Service
+@Slf4j
+public class SyntheticDataService {
+    
+    private static final String[] FIRST_NAMES = {
+        "Aarav", "Vivaan", "Aditya", "Arjun", "Sai", "Reyansh", "Krishna", "Ishaan", "Rohan", "Kabir",
+        "Ananya", "Diya", "Aadhya", "Saanvi", "Pari", "Anika", "Meera", "Kavya", "Riya", "Priya"
+    };
+    
+    private static final String[] LAST_NAMES = {
+        "Sharma", "Verma", "Gupta", "Iyer", "Reddy", "Nair", "Patel", "Shah", "Mehta", "Kapoor",
+        "Singh", "Das", "Bose", "Menon", "Rao", "Joshi", "Kulkarni", "Chopra", "Malhotra", "Pillai"
+    };
+    
+    // Popularity falls off like 1/rank, so the first merchants dominate as in real card spend
+    private static final double[] MERCHANT_CUMULATIVE_WEIGHTS = cumulativeRankWeights(TransactionService.MERCHANTS.length);
+    
+    // Spread of the log-normal amount distribution; most spend is small with a long tail of large purchases
+    private static final double AMOUNT_SIGMA = 1.0;
+    
+    private static final long CUSTOMER_STREAM = 1;
+    private static final long CARD_STREAM = 2;
+    
+    private final EntityManager entityManager;
+    private final TransactionTemplate batchTransaction;
+    private final CustomerRepository customerRepository;
+    private final CreditCardRepository creditCardRepository;
+    private final CustomerService customerService;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final TransactionConfig transactionConfig;
+    private final DataGeneratorConfig dataGeneratorConfig;
+    private final ExecutorService launcher;
+    
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong customersCreated = new AtomicLong();
+    private final AtomicLong cardsCreated = new AtomicLong();
+    private final AtomicLong transactionsCreated = new AtomicLong();
+    
+    private volatile Plan currentPlan;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile String error;
+    
+    public SyntheticDataService(EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                CustomerRepository customerRepository,
+                                CreditCardRepository creditCardRepository,
+                                CustomerService customerService,
+                                CustomerSearchIndex customerSearchIndex,
+                                TransactionConfig transactionConfig,
+                                DataGeneratorConfig dataGeneratorConfig) {
+        this.entityManager = entityManager;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.customerRepository = customerRepository;
+        this.creditCardRepository = creditCardRepository;
+        this.customerService = customerService;
+        this.customerSearchIndex = customerSearchIndex;
+        this.transactionConfig = transactionConfig;
+        this.dataGeneratorConfig = dataGeneratorConfig;
+        this.launcher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("synthetic-data-"));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        launcher.shutdownNow();
+    }
+    
+    /**
+     * Start generating in the background
+     * @return false if a run is already in progress
+     */
+    public boolean trigger(GenerateDataRequest request) {
+        if (!dataGeneratorConfig.isEnabled()) {
+            throw new BusinessRuleViolationException("Synthetic data generation is disabled (aurumx.data-generator.enabled)");
+        }
+        
+        int transactionsPerCard = request.getTransactionsPerCard() != null
+                ? request.getTransactionsPerCard()
+                : transactionConfig.getGenerationCount();
+        Plan plan = new Plan(request.getSeed(), request.getCustomers(), request.getCardsPerCustomer(), transactionsPerCard);
+        
+        // The first card number is shared by every seed with the same last three digits
+        if (customerRepository.existsByEmail(email(plan.seed(), 0))
+                || creditCardRepository.existsByCardNumber(cardNumber(plan.seed(), 0))) {
+            throw new BusinessRuleViolationException("Synthetic data for seed " + plan.seed() + " already exists");
+        }
+        
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        currentPlan = plan;
+        customersCreated.set(0);
+        cardsCreated.set(0);
+        transactionsCreated.set(0);
+        startedNanos = System.nanoTime();
+        startedAt = LocalDateTime.now();
+        completedAt = null;
+        error = null;
+        launcher.submit(() -> run(plan));
+        return true;
+    }
+    
+    public DataGeneratorStatusResponse getStatus() {
+        Plan plan = currentPlan;
+        if (plan == null) {
+            return new DataGeneratorStatusResponse(false, null, 0, 0, 0, 0, 0, 0, null, null, null);
+        }
+        
+        double elapsedSeconds = ((running.get() ? System.nanoTime() : finishedNanos) - startedNanos) / 1_000_000_000.0;
+        double transactionsPerSecond = elapsedSeconds > 0 ? transactionsCreated.get() / elapsedSeconds : 0;
+        
+        return new DataGeneratorStatusResponse(
+                running.get(),
+                plan.seed(),
+                plan.customers(),
+                plan.transactionCount(),
+                customersCreated.get(),
+                cardsCreated.get(),
+                transactionsCreated.get(),
+                transactionsPerSecond,
+                startedAt,
+                completedAt,
+                error
+        );
+    }
+    
+    private void run(Plan plan) {
+        log.info("Generating synthetic data with seed {}: {} customers x {} cards x {} transactions",
+                plan.seed(), plan.customers(), plan.cardsPerCustomer(), plan.transactionsPerCard());
+        try {
+            int batchSize = Math.max(1, transactionConfig.getIngestBatchSize());
+            int customersPerChunk = Math.max(1, batchSize / plan.cardsPerCustomer());
+            LocalDate today = LocalDate.now();
+            
+            for (long first = 0; first < plan.customers(); first += customersPerChunk) {
+                if (Thread.currentThread().isInterrupted()) {
+                    error = "Interrupted";
+                    break;
+                }
+                long last = Math.min(plan.customers(), first + customersPerChunk);
+                long[] cardIds = writeCustomers(plan, first, last, today);
+                writeTransactions(plan, first * plan.cardsPerCustomer(), cardIds, today, batchSize);
+            }
+            
+            // Customers were written without per-row index updates
+            customerSearchIndex.rebuild();
+            log.info("Synthetic data with seed {} done: {} customers, {} cards, {} transactions",
+                    plan.seed(), customersCreated.get(), cardsCreated.get(), transactionsCreated.get());
+        } catch (RuntimeException ex) {
+            error = ex.getMessage();
+            log.error("Synthetic data generation with seed {} failed", plan.seed(), ex);
+        } finally {
+            finishedNanos = System.nanoTime();
+            completedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+    
+    /**
+     * Customers with their summary rows and cards, in one database transaction
+     * @return ids of the new cards, in card index order
+     */
+    private long[] writeCustomers(Plan plan, long first, long last, LocalDate today) {
+        long[] cardIds = batchTransaction.execute(status -> {
+            long[] ids = new long[(int) ((last - first) * plan.cardsPerCustomer())];
+            int position = 0;
+            for (long index = first; index < last; index++) {
+                SplittableRandom random = stream(plan.seed(), CUSTOMER_STREAM, index);
+                Customer customer = newCustomer(plan.seed(), index, random, today);
+                entityManager.persist(customer);
+                
+                CustomerRewardSummary summary = new CustomerRewardSummary();
+                summary.setCustomerId(customer.getId());
+                summary.setLastUpdated(LocalDateTime.now());
+                entityManager.persist(summary);
+                
+                for (int card = 0; card < plan.cardsPerCustomer(); card++) {
+                    CreditCard creditCard = new CreditCard();
+                    creditCard.setCustomer(customer);
+                    creditCard.setCardNumber(cardNumber(plan.seed(), index * plan.cardsPerCustomer() + card));
+                    creditCard.setCardHolderName(customer.getName().toUpperCase(Locale.ROOT));
+                    creditCard.setExpiryDate(today.plusMonths(1 + random.nextInt(60)));
+                    entityManager.persist(creditCard);
+                    ids[position++] = creditCard.getId();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return ids;
+        });
+        
+        customersCreated.addAndGet(last - first);
+        cardsCreated.addAndGet(cardIds.length);
+        return cardIds;
+    }
+    
+    private void writeTransactions(Plan plan, long firstCardIndex, long[] cardIds, LocalDate today, int batchSize) {
+        LocalDateTime anchor = today.atStartOfDay();
+        long historySeconds = Math.max(1, dataGeneratorConfig.getHistoryDays()) * 86_400L;
+        
+        List<Row> rows = new ArrayList<>(batchSize);
+        for (int i = 0; i < cardIds.length; i++) {
+            SplittableRandom random = stream(plan.seed(), CARD_STREAM, firstCardIndex + i);
+            for (int t = 0; t < plan.transactionsPerCard(); t++) {
+                rows.add(new Row(
+                        cardIds[i],
+                        amountInPaise(random),
+                        merchant(random),
+                        anchor.minusSeconds(1 + random.nextLong(historySeconds))
+                ));
+                if (rows.size() == batchSize) {
+                    persistTransactions(rows);
+                    rows.clear();
+                }
+            }
+        }
+        if (!rows.isEmpty()) {
+            persistTransactions(rows);
+        }
+    }
+    
+    private void persistTransactions(List<Row> rows) {
+        batchTransaction.executeWithoutResult(status -> {
+            for (Row row : rows) {
+                Transaction transaction = new Transaction();
+                transaction.setCreditCard(entityManager.getReference(CreditCard.class, row.creditCardId()));
+                transaction.setAmount(BigDecimal.valueOf(row.amountInPaise(), 2));
+                transaction.setMerchant(row.merchant());
+                transaction.setTransactionDate(row.transactionDate());
+                transaction.setProcessed(false);
+                entityManager.persist(transaction);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+        transactionsCreated.addAndGet(rows.size());
+    }
+    
+    private Customer newCustomer(long seed, long index, SplittableRandom random, LocalDate today) {
+        int associationDays = Math.max(1, dataGeneratorConfig.getAssociationYears()) * 365;
+        LocalDate associationDate = today.minusDays(random.nextInt(associationDays + 1));
+        
+        Customer customer = new Customer();
+        customer.setName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        customer.setEmail(email(seed, index));
+        customer.setPhone("9" + String.format("%09d", random.nextInt(1_000_000_000)));
+        customer.setAssociationDate(associationDate);
+        customer.setCustomerType(customerService.calculateCustomerType(associationDate));
+        customer.setDeleted(false);
+        customer.setCreatedBy(1L);
+        return customer;
+    }
+    
+    /**
+     * Log-normal around three times the minimum amount, clamped to the TransactionConfig bounds
+     */
+    private long amountInPaise(SplittableRandom random) {
+        double min = transactionConfig.getMinAmount();
+        double max = transactionConfig.getMaxAmount();
+        double amount = Math.min(max, min * 3) * Math.exp(AMOUNT_SIGMA * random.nextGaussian());
+        return Math.round(Math.max(min, Math.min(max, amount)) * 100);
+    }
+    
+    private static String merchant(SplittableRandom random) {
+        double point = random.nextDouble() * MERCHANT_CUMULATIVE_WEIGHTS[MERCHANT_CUMULATIVE_WEIGHTS.length - 1];
+        int position = Arrays.binarySearch(MERCHANT_CUMULATIVE_WEIGHTS, point);
+        return TransactionService.MERCHANTS[position >= 0 ? position : -position - 1];
+    }
+    
+    private static double[] cumulativeRankWeights(int count) {
+        double[] cumulative = new double[count];
+        double total = 0;
+        for (int rank = 0; rank < count; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        return cumulative;
+    }
+    
+    private static SplittableRandom stream(long seed, long stream, long index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + (stream << 48) + index);
+    }
+    
+    private static String email(long seed, long index) {
+        return "customer" + index + ".s" + seed + "@synthetic.aurumx.test";
+    }
+    
+    private static String cardNumber(long seed, long cardIndex) {
+        return String.format("4%03d%012d", Math.floorMod(seed, 1000L), cardIndex);
+    }
+    
+    private record Plan(long seed, int customers, int cardsPerCustomer, int transactionsPerCard) {
+        long transactionCount() {
+            return (long) customers * cardsPerCustomer * transactionsPerCard;
+        }
+    }
+    
+    private record Row(long creditCardId, long amountInPaise, String merchant, LocalDateTime transactionDate) {
+    }
+}
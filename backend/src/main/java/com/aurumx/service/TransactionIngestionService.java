@@ -0,0 +1,287 @@
+package com.aurumx.service;
+
+import com.aurumx.config.TransactionConfig;
+import com.aurumx.dto.request.IngestTransactionRecord;
+import com.aurumx.dto.response.IngestionResponse;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Transaction;
+import com.aurumx.event.TransactionsRecordedEvent;
+import com.aurumx.exception.BusinessRuleViolationException;
+import com.aurumx.repository.CreditCardRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Streaming ingestion of card transactions
+ * The request body is read line by line and persisted in batches that Hibernate
+ * sends as JDBC batches (pooled ids, hibernate.jdbc.batch_size), so memory use is
+ * bounded by the batch size rather than the payload size.
+ * Each batch is committed on its own; a bad line only rejects that line. Lines are checked
+ * against the column limits up front, and a batch the database still refuses is retried
+ * row by row so that only the offending rows are rejected.
+ */
+@Service
+@Slf4j
+public class TransactionIngestionService {
+    
+    public enum Format { NDJSON, CSV }
+    
+    private static final int MAX_REJECTIONS_PER_BATCH = 20;
+    // Column limits of transaction.merchant (VARCHAR(255)) and transaction.amount (DECIMAL(10,2))
+    private static final int MAX_MERCHANT_LENGTH = 255;
+    private static final int MAX_AMOUNT_INTEGER_DIGITS = 8;
+    
+    private final EntityManager entityManager;
+    private final TransactionTemplate batchTransaction;
+    private final CreditCardRepository creditCardRepository;
+    private final TransactionConfig transactionConfig;
+    private final ObjectReader recordReader;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public TransactionIngestionService(EntityManager entityManager,
+                                       PlatformTransactionManager transactionManager,
+                                       CreditCardRepository creditCardRepository,
+                                       TransactionConfig transactionConfig,
+                                       ObjectMapper objectMapper,
+                                       ApplicationEventPublisher eventPublisher) {
+        this.entityManager = entityManager;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.creditCardRepository = creditCardRepository;
+        this.transactionConfig = transactionConfig;
+        this.recordReader = objectMapper.readerFor(IngestTransactionRecord.class);
+        this.eventPublisher = eventPublisher;
+    }
+    
+    public IngestionResponse ingest(InputStream body, Format format) throws IOException {
+        int batchSize = Math.max(1, transactionConfig.getIngestBatchSize());
+        IngestionResponse response = new IngestionResponse();
+        
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        Batch batch = new Batch(1);
+        long lineNumber = 0;
+        String line;
+        
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && lineNumber == 1 && isCsvHeader(line)) {
+                continue;
+            }
+            
+            try {
+                IngestTransactionRecord record = format == Format.NDJSON
+                        ? recordReader.readValue(line)
+                        : parseCsvLine(line);
+                validate(record);
+                batch.add(lineNumber, record);
+            } catch (IOException | RuntimeException ex) {
+                batch.reject(lineNumber, ex.getMessage());
+            }
+            
+            if (batch.size() >= batchSize) {
+                flush(batch, response);
+                batch = new Batch(batch.number + 1);
+            }
+        }
+        
+        if (batch.size() > 0) {
+            flush(batch, response);
+        }
+        
+        log.info("Ingested transactions. Accepted: {}, rejected: {}", response.getTotalAccepted(), response.getTotalRejected());
+        return response;
+    }
+    
+    private void flush(Batch batch, IngestionResponse response) {
+        Set<Long> knownCards = new HashSet<>(creditCardRepository.findExistingIds(batch.cardIds()));
+        
+        List<IngestTransactionRecord> rows = new ArrayList<>(batch.records.size());
+        List<Long> rowLineNumbers = new ArrayList<>(batch.records.size());
+        for (int i = 0; i < batch.records.size(); i++) {
+            IngestTransactionRecord record = batch.records.get(i);
+            if (knownCards.contains(record.getCreditCardId())) {
+                rows.add(record);
+                rowLineNumbers.add(batch.lineNumbers.get(i));
+            } else {
+                batch.reject(batch.lineNumbers.get(i), "Credit card not found with id: " + record.getCreditCardId());
+            }
+        }
+        
+        int accepted = rows.size();
+        if (!rows.isEmpty()) {
+            try {
+                insert(rows);
+            } catch (DataAccessException | PersistenceException ex) {
+                // One refused row fails the whole JDBC batch; retry row by row so only that row is rejected
+                log.warn("Ingestion batch {} was refused by the database, retrying row by row", batch.number, ex);
+                accepted = 0;
+                for (int i = 0; i < rows.size(); i++) {
+                    try {
+                        insert(List.of(rows.get(i)));
+                        accepted++;
+                    } catch (DataAccessException | PersistenceException rowEx) {
+                        batch.reject(rowLineNumbers.get(i), "Refused by the database");
+                    }
+                }
+            }
+        }
+        
+        response.getBatches().add(new IngestionResponse.BatchResult(
+                batch.number, accepted, batch.rejected, batch.rejections));
+        response.setTotalAccepted(response.getTotalAccepted() + accepted);
+        response.setTotalRejected(response.getTotalRejected() + batch.rejected);
+    }
+    
+    private void insert(List<IngestTransactionRecord> rows) {
+        batchTransaction.executeWithoutResult(status -> {
+            for (IngestTransactionRecord record : rows) {
+                Transaction transaction = new Transaction();
+                // Reference only, the card ids were verified by flush
+                transaction.setCreditCard(entityManager.getReference(CreditCard.class, record.getCreditCardId()));
+                transaction.setAmount(record.getAmount());
+                transaction.setMerchant(record.getMerchant());
+                transaction.setTransactionDate(record.getTransactionDate());
+                transaction.setProcessed(false);
+                entityManager.persist(transaction);
+            }
+            entityManager.flush();
+            entityManager.clear();
+            // Delivered to listeners once this batch has committed
+            eventPublisher.publishEvent(new TransactionsRecordedEvent(cardIdsOf(rows)));
+        });
+    }
+    
+    private static Set<Long> cardIdsOf(List<IngestTransactionRecord> rows) {
+        Set<Long> cardIds = new HashSet<>();
+        for (IngestTransactionRecord record : rows) {
+            cardIds.add(record.getCreditCardId());
+        }
+        return cardIds;
+    }
+    
+    private void validate(IngestTransactionRecord record) {
+        if (record.getCreditCardId() == null) {
+            throw new BusinessRuleViolationException("creditCardId is required");
+        }
+        if (record.getAmount() == null || record.getAmount().signum() <= 0) {
+            throw new BusinessRuleViolationException("amount must be greater than 0");
+        }
+        if (record.getAmount().scale() > 2) {
+            throw new BusinessRuleViolationException("amount must have at most 2 decimal places");
+        }
+        if (record.getAmount().precision() - record.getAmount().scale() > MAX_AMOUNT_INTEGER_DIGITS) {
+            throw new BusinessRuleViolationException("amount must be less than 100000000");
+        }
+        if (record.getMerchant() == null || record.getMerchant().isBlank()) {
+            throw new BusinessRuleViolationException("merchant is required");
+        }
+        if (record.getMerchant().length() > MAX_MERCHANT_LENGTH) {
+            throw new BusinessRuleViolationException("merchant must be at most " + MAX_MERCHANT_LENGTH + " characters");
+        }
+        if (record.getTransactionDate() == null) {
+            throw new BusinessRuleViolationException("transactionDate is required");
+        }
+    }
+    
+    private boolean isCsvHeader(String line) {
+        return line.trim().toLowerCase(Locale.ROOT).startsWith("creditcardid");
+    }
+    
+    /**
+     * Parse creditCardId,amount,merchant,transactionDate
+     * Fields may be double-quoted; "" inside a quoted field is an escaped quote
+     */
+    private IngestTransactionRecord parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        
+        if (fields.size() != 4) {
+            throw new BusinessRuleViolationException("Expected 4 fields but found " + fields.size());
+        }
+        
+        return new IngestTransactionRecord(
+                Long.valueOf(fields.get(0)),
+                new BigDecimal(fields.get(1)),
+                fields.get(2),
+                LocalDateTime.parse(fields.get(3))
+        );
+    }
+    
+    private static class Batch {
+        private final int number;
+        private final List<Long> lineNumbers = new ArrayList<>();
+        private final List<IngestTransactionRecord> records = new ArrayList<>();
+        private final List<IngestionResponse.RejectedLine> rejections = new ArrayList<>();
+        private int rejected;
+        
+        Batch(int number) {
+            this.number = number;
+        }
+        
+        void add(long lineNumber, IngestTransactionRecord record) {
+            lineNumbers.add(lineNumber);
+            records.add(record);
+        }
+        
+        void reject(long lineNumber, String reason) {
+            rejected++;
+            if (rejections.size() < MAX_REJECTIONS_PER_BATCH) {
+                rejections.add(new IngestionResponse.RejectedLine(lineNumber, reason));
+            }
+        }
+        
+        int size() {
+            return records.size() + rejected;
+        }
+        
+        Set<Long> cardIds() {
+            Set<Long> ids = new HashSet<>();
+            for (IngestTransactionRecord record : records) {
+                ids.add(record.getCreditCardId());
+            }
+            return ids;
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.aurumx.service;
 
+import com.aurumx.config.PaginationConfig;
 import com.aurumx.config.TransactionConfig;
+import com.aurumx.dto.response.CursorPage;
+import com.aurumx.dto.response.TransactionResponse;
 import com.aurumx.entity.CreditCard;
 import com.aurumx.entity.Transaction;
+import com.aurumx.event.TransactionsRecordedEvent;
 import com.aurumx.exception.ResourceNotFoundException;
 import com.aurumx.repository.CreditCardRepository;
 import com.aurumx.repository.TransactionRepository;
+import com.aurumx.util.Cursors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +23,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -23,8 +32,10 @@ public class TransactionService {
     private final TransactionRepository transactionRepository;
     private final CreditCardRepository creditCardRepository;
     private final TransactionConfig transactionConfig;
+    private final PaginationConfig paginationConfig;
+    private final ApplicationEventPublisher eventPublisher;
     
-    private static final String[] MERCHANTS = {
+    static final String[] MERCHANTS = {
         "Amazon", "Flipkart", "Swiggy", "Zomato", "BigBasket",
         "Reliance Digital", "Croma", "Myntra", "AJIO", "Decathlon",
         "BookMyShow", "Uber", "Ola", "StarBucks", "McDonald's",
@@ -67,10 +78,40 @@ public class TransactionService {
             transactions.add(transaction);
         }
         
-        return transactionRepository.saveAll(transactions);
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        eventPublisher.publishEvent(new TransactionsRecordedEvent(Set.of(creditCardId)));
+        return saved;
     }
     
-    public org.springframework.data.domain.Page<Transaction> getTransactionsByCard(Long creditCardId, org.springframework.data.domain.Pageable pageable) {
-        return transactionRepository.findByCreditCardId(creditCardId, pageable);
+    public org.springframework.data.domain.Page<TransactionResponse> getTransactionsByCard(Long creditCardId, org.springframework.data.domain.Pageable pageable) {
+        return transactionRepository.findHistoryByCreditCardId(creditCardId, pageable);
+    }
+    
+    /**
+     * Keyset pagination over a card's transactions, newest first
+     * Seeks past the (transactionDate, id) of the previous page's last row, so deep pages
+     * cost the same as the first one and no count query is needed
+     */
+    public CursorPage<TransactionResponse> getTransactionsByCard(Long creditCardId, String cursor, int size) {
+        int pageSize = paginationConfig.resolvePageSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        
+        List<TransactionResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findLatestByCreditCardId(creditCardId, limit);
+        } else {
+            String[] key = Cursors.decode(cursor, 2);
+            rows = transactionRepository.findByCreditCardIdBefore(
+                    creditCardId, Cursors.toDateTime(key[0]), Cursors.toLong(key[1]), limit);
+        }
+        
+        boolean hasNext = rows.size() > pageSize;
+        List<TransactionResponse> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            TransactionResponse last = content.get(content.size() - 1);
+            nextCursor = Cursors.encode(last.getTransactionDate(), last.getId());
+        }
+        return new CursorPage<>(content, content.size(), nextCursor, hasNext);
     }
 }
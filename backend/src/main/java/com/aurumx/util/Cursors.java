@@ -0,0 +1,67 @@
+package com.aurumx.util;
+
+import com.aurumx.exception.BusinessRuleViolationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for keyset pagination
+ * A cursor is the sort key of the last row of a page, URL-safe Base64 encoded
+ * so clients pass it back verbatim instead of building it themselves
+ */
+public final class Cursors {
+    
+    private static final String SEPARATOR = "|";
+    
+    private Cursors() {
+    }
+    
+    public static String encode(Object... keyParts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : keyParts) {
+            if (!key.isEmpty()) {
+                key.append(SEPARATOR);
+            }
+            key.append(part);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * @return the key parts of the cursor
+     * @throws BusinessRuleViolationException if the cursor was not produced by {@link #encode}
+     *         with the expected number of parts
+     */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = key.split("\\" + SEPARATOR, -1);
+            if (parts.length == expectedParts) {
+                return parts;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // Not Base64, reported below
+        }
+        throw new BusinessRuleViolationException("Invalid cursor: " + cursor);
+    }
+    
+    public static long toLong(String keyPart) {
+        try {
+            return Long.parseLong(keyPart);
+        } catch (NumberFormatException ex) {
+            throw new BusinessRuleViolationException("Invalid cursor");
+        }
+    }
+    
+    public static LocalDateTime toDateTime(String keyPart) {
+        try {
+            return LocalDateTime.parse(keyPart);
+        } catch (DateTimeParseException ex) {
+            throw new BusinessRuleViolationException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.aurumx.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic for reward points
+ * A points value is a plain long holding hundredths of a point (12.34 points = 1234),
+ * so accrual and redemption loops add and compare primitives instead of allocating BigDecimals.
+ * Values are converted to BigDecimal with scale 2 only at the entity and API boundary,
+ * where the columns are DECIMAL(…, 2).
+ */
+public final class Points {
+    
+    public static final int SCALE = 2;
+    public static final long ZERO = 0L;
+    
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+    
+    private Points() {
+    }
+    
+    /**
+     * Points earned on an amount at the given percentage, rounded HALF_UP to hundredths
+     * Same result as amount * percentage / 100 with BigDecimal.divide(…, 2, HALF_UP)
+     */
+    public static long accrue(BigDecimal amount, int percentage) {
+        int scale = amount.scale();
+        if (scale >= 0 && scale < POWERS_OF_TEN.length && amount.precision() <= 18) {
+            try {
+                // amount = unscaled / 10^scale, so hundredths = unscaled * percentage / 10^scale
+                long numerator = Math.multiplyExact(amount.unscaledValue().longValue(), (long) percentage);
+                return divideHalfUp(numerator, POWERS_OF_TEN[scale]);
+            } catch (ArithmeticException ignored) {
+                // Overflow, fall through to the exact path
+            }
+        }
+        return toHundredths(amount.multiply(BigDecimal.valueOf(percentage))
+                .divide(BigDecimal.valueOf(100), SCALE, RoundingMode.HALF_UP));
+    }
+    
+    /**
+     * Whole points (e.g. a reward item cost) as hundredths
+     */
+    public static long ofWhole(long points) {
+        return Math.multiplyExact(points, 100L);
+    }
+    
+    /**
+     * Exact conversion from a scale-2 (or coarser) BigDecimal, null is treated as zero
+     * @throws ArithmeticException if the value has more than 2 decimals or does not fit in a long
+     */
+    public static long toHundredths(BigDecimal points) {
+        if (points == null) {
+            return ZERO;
+        }
+        return points.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+    
+    public static BigDecimal toBigDecimal(long hundredths) {
+        return BigDecimal.valueOf(hundredths, SCALE);
+    }
+    
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+    
+    /**
+     * Division rounding half away from zero, which is what RoundingMode.HALF_UP does
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) >= divisor - Math.abs(remainder)) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
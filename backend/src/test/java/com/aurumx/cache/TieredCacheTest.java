@@ -0,0 +1,176 @@
+package com.aurumx.cache;
+
+import com.aurumx.config.CacheConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes, each with its own TieredCache, sharing one EmbeddedRemoteCacheTier
+ * A write committed on one node must be seen by the other's next read, a rolled-back write must
+ * evict nothing, a load overlapping an eviction must not be stored, and a lost invalidation
+ * must leave a node stale for no longer than the local TTL.
+ */
+class TieredCacheTest {
+    
+    private static final String KEY = "42";
+    
+    private final AtomicReference<String> database = new AtomicReference<>("v1");
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<String> loader = () -> {
+        loads.incrementAndGet();
+        return database.get();
+    };
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new NoOpTransactionManager());
+    
+    private CacheConfig cacheConfig;
+    private EmbeddedRemoteCacheTier remote;
+    
+    @BeforeEach
+    void createStore() {
+        cacheConfig = new CacheConfig();
+        cacheConfig.setLocalTtlSeconds(1);
+        remote = new EmbeddedRemoteCacheTier();
+    }
+    
+    @Test
+    void writeCommittedOnOneNodeIsReadOnTheOther() {
+        TieredCache<String> nodeA = node(remote);
+        TieredCache<String> nodeB = node(remote);
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v1");
+        assertThat(nodeA.get(KEY, loader)).isEqualTo("v1");
+        // Node A found node B's value in the shared tier
+        assertThat(loads).hasValue(1);
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            database.set("v2");
+            nodeA.evict(KEY);
+            // Nothing is evicted before commit, so other nodes keep serving the committed value
+            assertThat(remote.get("test", KEY)).isNotNull();
+        });
+        
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v2");
+        assertThat(nodeA.get(KEY, loader)).isEqualTo("v2");
+        assertThat(loads).hasValue(2);
+    }
+    
+    @Test
+    void rolledBackWriteEvictsNothing() {
+        TieredCache<String> nodeA = node(remote);
+        TieredCache<String> nodeB = node(remote);
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v1");
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            nodeA.evict(KEY);
+            status.setRollbackOnly();
+        });
+        
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v1");
+        assertThat(nodeA.get(KEY, loader)).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+        assertThat(remote.get("test", KEY)).isNotNull();
+    }
+    
+    @Test
+    void loadOverlappingAnEvictionIsNotStored() {
+        TieredCache<String> nodeA = node(remote);
+        TieredCache<String> nodeB = node(remote);
+        
+        // Node A commits a write after node B read the old value but before its load returns
+        String stale = nodeB.get(KEY, () -> {
+            String value = loader.get();
+            database.set("v2");
+            nodeA.evict(KEY);
+            return value;
+        });
+        
+        assertThat(stale).isEqualTo("v1");
+        assertThat(remote.get("test", KEY)).isNull();
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v2");
+        assertThat(nodeA.get(KEY, loader)).isEqualTo("v2");
+    }
+    
+    @Test
+    void localTtlBoundsStalenessWhenAnInvalidationIsLost() throws InterruptedException {
+        TieredCache<String> nodeA = node(remote);
+        TieredCache<String> nodeB = node(new DeafRemoteCacheTier(remote));
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v1");
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            database.set("v2");
+            nodeA.evict(KEY);
+        });
+        
+        // The shared entry is gone, but node B never heard and serves its own copy until it expires
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v1");
+        Thread.sleep(Duration.ofSeconds(cacheConfig.getLocalTtlSeconds()).toMillis() + 100);
+        assertThat(nodeB.get(KEY, loader)).isEqualTo("v2");
+    }
+    
+    private TieredCache<String> node(RemoteCacheTier remoteTier) {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new TieredCache<>("test", String.class, cacheConfig, remoteTier, new ObjectMapper(), meterRegistry);
+    }
+    
+    /**
+     * Shares the store but drops invalidation messages, as a node with a broken subscription would
+     */
+    private record DeafRemoteCacheTier(RemoteCacheTier store) implements RemoteCacheTier {
+        
+        @Override
+        public byte[] get(String cacheName, String key) {
+            return store.get(cacheName, key);
+        }
+        
+        @Override
+        public void put(String cacheName, String key, byte[] value, Duration ttl) {
+            store.put(cacheName, key, value, ttl);
+        }
+        
+        @Override
+        public void evict(String cacheName, String key) {
+            store.evict(cacheName, key);
+        }
+        
+        @Override
+        public void addInvalidationListener(BiConsumer<String, String> listener) {
+        }
+    }
+    
+    /**
+     * Runs transaction synchronizations without a resource, so commit and rollback can be driven here
+     */
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+        
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+        
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+        
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
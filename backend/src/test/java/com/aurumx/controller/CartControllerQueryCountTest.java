@@ -0,0 +1,222 @@
+package com.aurumx.controller;
+
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Reward;
+import com.aurumx.entity.RewardCategory;
+import com.aurumx.entity.RewardItem;
+import com.aurumx.repository.RewardCategoryRepository;
+import com.aurumx.repository.RewardItemRepository;
+import com.aurumx.repository.RewardRepository;
+import com.aurumx.service.CreditCardService;
+import com.aurumx.service.CustomerService;
+import com.aurumx.service.RewardCatalogService;
+import com.aurumx.service.RewardSummaryService;
+import com.aurumx.support.StatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cart, redemption and history endpoints must cost the same number of statements however many
+ * lines or redemptions they cover, so a reward item or redemption item load per row fails the build
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN_CES")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CartControllerQueryCountTest {
+    
+    private static final int ITEMS = 6;
+    // Either call may be the one that fetches the next block of 50 ids for the history, its items or cart lines
+    private static final Offset<Long> SEQUENCE_REFILLS = Offset.offset(2L);
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private CreditCardService creditCardService;
+    
+    @Autowired
+    private RewardRepository rewardRepository;
+    
+    @Autowired
+    private RewardSummaryService rewardSummaryService;
+    
+    @Autowired
+    private RewardCategoryRepository rewardCategoryRepository;
+    
+    @Autowired
+    private RewardItemRepository rewardItemRepository;
+    
+    @Autowired
+    private RewardCatalogService rewardCatalogService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private StatementCounter statementCounter;
+    private final List<RewardItem> items = new ArrayList<>();
+    private int cards;
+    
+    @BeforeAll
+    void createCatalog() {
+        statementCounter = new StatementCounter(entityManagerFactory);
+        RewardCategory category = rewardCategoryRepository.save(new RewardCategory(null, "Counted", "Query count items", 1));
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(rewardItemRepository.save(new RewardItem(null, category, "Counted item " + i, "Query count item", 5, true)));
+        }
+        rewardCatalogService.refresh();
+    }
+    
+    @Test
+    void cartReadCostsTheSameForAnyNumberOfLines() throws Exception {
+        CreditCard few = createCard();
+        CreditCard many = createCard();
+        fillCart(few, 1);
+        fillCart(many, ITEMS);
+        
+        long small = statements(get("/cart/" + few.getCustomer().getId()));
+        long large = statements(get("/cart/" + many.getCustomer().getId()));
+        
+        // Lines are held in memory and priced from the catalog snapshot
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(1);
+    }
+    
+    @Test
+    void cartReplaceCostsTheSameForAnyNumberOfLines() throws Exception {
+        Long few = createCard().getCustomer().getId();
+        Long many = createCard().getCustomer().getId();
+        
+        long small = statements(put("/cart/" + few).contentType(MediaType.APPLICATION_JSON).content(cartBody(1)));
+        long large = statements(put("/cart/" + many).contentType(MediaType.APPLICATION_JSON).content(cartBody(ITEMS)));
+        
+        // Inserts go out as one JDBC batch
+        assertThat(large).isCloseTo(small, SEQUENCE_REFILLS);
+    }
+    
+    @Test
+    void redemptionCostsTheSameForAnyNumberOfLines() throws Exception {
+        CreditCard few = createCard();
+        CreditCard many = createCard();
+        fillCart(few, 1);
+        fillCart(many, ITEMS);
+        
+        long small = statements(redeem(few));
+        long large = statements(redeem(many));
+        
+        assertThat(large).isCloseTo(small, SEQUENCE_REFILLS);
+    }
+    
+    @Test
+    void redemptionHistoryIsOneStatementForAnyNumberOfRedemptions() throws Exception {
+        CreditCard few = createCard();
+        CreditCard many = createCard();
+        fillCart(few, 1);
+        call(redeem(few));
+        for (int i = 0; i < 3; i++) {
+            fillCart(many, ITEMS);
+            call(redeem(many));
+        }
+        
+        for (String path : List.of("/cart/redemption-history/", "/rewards/history/")) {
+            long small = statements(get(path + few.getCustomer().getId()));
+            long large = statements(get(path + many.getCustomer().getId()));
+            
+            // History, its items and their reward items in one select
+            assertThat(large).as(path).isEqualTo(small).isEqualTo(1);
+        }
+    }
+    
+    @Test
+    void balanceIsThreeStatementsThenCached() throws Exception {
+        Long customerId = createCard().getCustomer().getId();
+        
+        long first = statements(get("/rewards/balance/" + customerId));
+        long second = statements(get("/rewards/balance/" + customerId));
+        
+        // Customer, summary row and the cards-with-balance query, then served from CustomerCache
+        assertThat(first).isLessThanOrEqualTo(3);
+        assertThat(second).isZero();
+    }
+    
+    @Test
+    void catalogReadsAreServedFromTheSnapshot() throws Exception {
+        assertThat(statements(get("/rewards/catalog/categories"))).isZero();
+        assertThat(statements(get("/rewards/catalog/items"))).isZero();
+        assertThat(statements(get("/catalog/items"))).isZero();
+    }
+    
+    private void fillCart(CreditCard card, int lines) throws Exception {
+        call(put("/cart/" + card.getCustomer().getId()).contentType(MediaType.APPLICATION_JSON).content(cartBody(lines)));
+    }
+    
+    private String cartBody(int lines) {
+        return items.stream().limit(lines)
+                .map(item -> "{\"rewardItemId\":" + item.getId() + ",\"quantity\":2}")
+                .collect(Collectors.joining(",", "{\"items\":[", "]}"));
+    }
+    
+    private RequestBuilder redeem(CreditCard card) {
+        return post("/cart/" + card.getCustomer().getId() + "/redeem").param("creditCardId", String.valueOf(card.getId()));
+    }
+    
+    private CreditCard createCard() {
+        int n = ++cards;
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Cart Customer " + n);
+        customer.setEmail("cart" + n + "@aurumx.test");
+        customer.setPhone("9400000" + n);
+        customer.setAssociationDate(LocalDate.now().minusYears(2));
+        Long customerId = customerService.createCustomer(customer).getId();
+        
+        AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+        cardRequest.setCustomerId(customerId);
+        cardRequest.setCardNumber("48890" + String.format("%011d", n));
+        cardRequest.setCardHolderName("Cart Customer " + n);
+        cardRequest.setExpiryDate(LocalDate.now().plusYears(2));
+        CreditCard card = creditCardService.addCreditCard(cardRequest);
+        
+        Reward reward = new Reward();
+        reward.setCreditCard(card);
+        reward.setCustomer(card.getCustomer());
+        reward.setPointsBalance(BigDecimal.valueOf(10_000));
+        reward.setLifetimeEarned(BigDecimal.valueOf(10_000));
+        rewardRepository.save(reward);
+        rewardSummaryService.rebuild(customerId);
+        return card;
+    }
+    
+    private void call(RequestBuilder request) throws Exception {
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+    }
+    
+    private long statements(RequestBuilder request) throws Exception {
+        return statementCounter.count(() -> call(request));
+    }
+}
@@ -0,0 +1,145 @@
+package com.aurumx.controller;
+
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Reward;
+import com.aurumx.repository.RewardRepository;
+import com.aurumx.service.CreditCardService;
+import com.aurumx.service.CustomerSearchIndex;
+import com.aurumx.service.CustomerService;
+import com.aurumx.service.RewardSummaryService;
+import com.aurumx.support.StatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Customer listings must cost the same number of statements whatever the page size,
+ * so a per-customer balance lookup (N+1) fails the build
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN_CES")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CustomerControllerQueryCountTest {
+    
+    private static final int CUSTOMERS = 12;
+    private static final String NAME = "Listing Customer";
+    private static final String CARD_PREFIX = "47770";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private CreditCardService creditCardService;
+    
+    @Autowired
+    private RewardRepository rewardRepository;
+    
+    @Autowired
+    private RewardSummaryService rewardSummaryService;
+    
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private StatementCounter statementCounter;
+    private Long customerId;
+    
+    @BeforeAll
+    void createCustomers() {
+        statementCounter = new StatementCounter(entityManagerFactory);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            CreateCustomerRequest customer = new CreateCustomerRequest();
+            customer.setName(NAME + " " + i);
+            customer.setEmail("listing" + i + "@aurumx.test");
+            customer.setPhone("9000000" + i);
+            customer.setAssociationDate(LocalDate.now().minusYears(i));
+            customerId = customerService.createCustomer(customer).getId();
+            
+            AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+            cardRequest.setCustomerId(customerId);
+            cardRequest.setCardNumber(CARD_PREFIX + String.format("%011d", i));
+            cardRequest.setCardHolderName(NAME);
+            cardRequest.setExpiryDate(LocalDate.now().plusYears(2));
+            CreditCard card = creditCardService.addCreditCard(cardRequest);
+            
+            Reward reward = new Reward();
+            reward.setCreditCard(card);
+            reward.setCustomer(card.getCustomer());
+            reward.setPointsBalance(BigDecimal.valueOf(100 + i));
+            reward.setLifetimeEarned(BigDecimal.valueOf(100 + i));
+            rewardRepository.save(reward);
+            rewardSummaryService.rebuild(customerId);
+        }
+        customerSearchIndex.rebuild();
+    }
+    
+    @Test
+    void customerPageCostsTheSameForAnyPageSize() throws Exception {
+        assertConstantPerPage("/customers");
+    }
+    
+    @Test
+    void customerCursorPageCostsTheSameForAnyPageSize() throws Exception {
+        long small = statements("/customers/cursor?size=2");
+        long large = statements("/customers/cursor?size=" + CUSTOMERS);
+        
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(2);
+    }
+    
+    @Test
+    void nameSearchCostsTheSameForAnyPageSize() throws Exception {
+        assertConstantPerPage("/customers/search/name?name=" + NAME.replace(' ', '+'));
+    }
+    
+    @Test
+    void cardSearchCostsTheSameForAnyPageSize() throws Exception {
+        assertConstantPerPage("/customers/search/card?cardNumber=" + CARD_PREFIX);
+    }
+    
+    @Test
+    void customerDetailIsTwoStatementsThenCached() throws Exception {
+        long first = statements("/customers/" + customerId);
+        long second = statements("/customers/" + customerId);
+        
+        // Customer row and its balance summary, then served from CustomerCache
+        assertThat(first).isLessThanOrEqualTo(2);
+        assertThat(second).isZero();
+    }
+    
+    private void assertConstantPerPage(String path) throws Exception {
+        String separator = path.contains("?") ? "&" : "?";
+        long small = statements(path + separator + "size=2");
+        long large = statements(path + separator + "size=" + CUSTOMERS);
+        
+        // Page rows, total count and one grouped balance query
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(3);
+    }
+    
+    private long statements(String path) throws Exception {
+        return statementCounter.count(() -> mockMvc.perform(get(path))
+                .andExpect(status().isOk()));
+    }
+}
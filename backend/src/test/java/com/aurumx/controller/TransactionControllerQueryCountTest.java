@@ -0,0 +1,147 @@
+package com.aurumx.controller;
+
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Transaction;
+import com.aurumx.repository.TransactionRepository;
+import com.aurumx.service.CreditCardService;
+import com.aurumx.service.CustomerService;
+import com.aurumx.support.StatementCounter;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Transaction history and accrual must cost the same number of statements however many
+ * transactions they touch, so a lazy card or customer load per row (N+1) fails the build
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN_CES")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionControllerQueryCountTest {
+    
+    private static final int FEW = 3;
+    private static final int MANY = 40;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private CreditCardService creditCardService;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private StatementCounter statementCounter;
+    private int cards;
+    
+    @BeforeAll
+    void createCounter() {
+        statementCounter = new StatementCounter(entityManagerFactory);
+    }
+    
+    @Test
+    void historyPageCostsTheSameForAnyPageSize() throws Exception {
+        Long cardId = createCard(MANY).getId();
+        
+        long small = statements(get("/transactions/card/" + cardId).param("size", String.valueOf(FEW)));
+        long large = statements(get("/transactions/card/" + cardId).param("size", String.valueOf(MANY)));
+        
+        // Projected rows and the total count
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(2);
+    }
+    
+    @Test
+    void historyCursorCostsTheSameForAnyPageSize() throws Exception {
+        Long cardId = createCard(MANY).getId();
+        
+        long small = statements(get("/transactions/card/" + cardId + "/cursor").param("size", String.valueOf(FEW)));
+        long large = statements(get("/transactions/card/" + cardId + "/cursor").param("size", String.valueOf(MANY)));
+        
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(1);
+    }
+    
+    @Test
+    void cardAccrualCostsTheSameForAnyNumberOfTransactions() throws Exception {
+        Long few = createCard(FEW).getId();
+        Long many = createCard(MANY).getId();
+        
+        long small = statements(post("/rewards/process/card/" + few));
+        long large = statements(post("/rewards/process/card/" + many));
+        
+        assertThat(large).isEqualTo(small);
+    }
+    
+    @Test
+    void customerAccrualCostsTheSameForAnyNumberOfTransactions() throws Exception {
+        Long few = createCard(FEW).getCustomer().getId();
+        Long many = createCard(MANY).getCustomer().getId();
+        
+        long small = statements(post("/rewards/process/" + few));
+        long large = statements(post("/rewards/process/" + many));
+        
+        assertThat(large).isEqualTo(small);
+    }
+    
+    private CreditCard createCard(int transactions) {
+        int n = ++cards;
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("History Customer " + n);
+        customer.setEmail("history" + n + "@aurumx.test");
+        customer.setPhone("9300000" + n);
+        customer.setAssociationDate(LocalDate.now().minusYears(3));
+        Long customerId = customerService.createCustomer(customer).getId();
+        
+        AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+        cardRequest.setCustomerId(customerId);
+        cardRequest.setCardNumber("48880" + String.format("%011d", n));
+        cardRequest.setCardHolderName("History Customer " + n);
+        cardRequest.setExpiryDate(LocalDate.now().plusYears(2));
+        CreditCard card = creditCardService.addCreditCard(cardRequest);
+        
+        List<Transaction> rows = new ArrayList<>();
+        for (int i = 0; i < transactions; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setCreditCard(card);
+            transaction.setAmount(BigDecimal.valueOf(100 + i));
+            transaction.setMerchant("Merchant " + i);
+            transaction.setTransactionDate(LocalDateTime.now().minusDays(i));
+            rows.add(transaction);
+        }
+        transactionRepository.saveAll(rows);
+        return card;
+    }
+    
+    private long statements(RequestBuilder request) throws Exception {
+        return statementCounter.count(() -> mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful()));
+    }
+}
@@ -0,0 +1,223 @@
+package com.aurumx.job;
+
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Transaction;
+import com.aurumx.event.TransactionsRecordedEvent;
+import com.aurumx.repository.RewardRepository;
+import com.aurumx.repository.TransactionRepository;
+import com.aurumx.service.CreditCardService;
+import com.aurumx.service.CustomerService;
+import com.aurumx.util.Points;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cards are queued for accrual only once the transaction that recorded their transactions commits,
+ * never after a rollback, and ingested or generated transactions end up processed and credited
+ * at the regular percentage once the pipeline has drained
+ */
+@SpringBootTest(properties = {
+        "aurumx.accrual-pipeline.enabled=true",
+        // Several committed batches, so several events, per ingest request
+        "aurumx.transaction.ingest-batch-size=10"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN_CES")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RewardAccrualPipelineTest {
+    
+    private static final int REGULAR_PERCENTAGE = 5;
+    private static final long TIMEOUT_MILLIS = 30_000;
+    // Long enough for a worker to pick up a card queued by mistake
+    private static final long QUIET_MILLIS = 1_000;
+    
+    @Autowired
+    private RewardAccrualPipeline pipeline;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private CreditCardService creditCardService;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private RewardRepository rewardRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    private int cards;
+    
+    @Test
+    void cardIsAccruedOnlyAfterTheRecordingTransactionCommits() throws Exception {
+        CreditCard card = createCard();
+        long enqueued = pipeline.getStatus().getCardsEnqueued();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            transactionRepository.saveAll(transactions(card, "120.00", "75.50", "999.99"));
+            eventPublisher.publishEvent(new TransactionsRecordedEvent(Set.of(card.getId())));
+            sleep(QUIET_MILLIS);
+            assertThat(pipeline.getStatus().getCardsEnqueued()).isEqualTo(enqueued);
+        });
+        
+        await(() -> unprocessed(card) == 0);
+        assertThat(pipeline.getStatus().getCardsEnqueued()).isEqualTo(enqueued + 1);
+        assertCredited(card);
+    }
+    
+    @Test
+    void rolledBackEventQueuesNothing() throws Exception {
+        CreditCard card = createCard();
+        // Committed without an event, so only the rolled-back one could accrue them
+        transactionRepository.saveAll(transactions(card, "300.00", "45.25"));
+        long enqueued = pipeline.getStatus().getCardsEnqueued();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new TransactionsRecordedEvent(Set.of(card.getId())));
+            status.setRollbackOnly();
+        });
+        sleep(QUIET_MILLIS);
+        
+        assertThat(pipeline.getStatus().getCardsEnqueued()).isEqualTo(enqueued);
+        assertThat(unprocessed(card)).isEqualTo(2);
+        assertThat(rewardRepository.findPointsBalanceByCreditCardId(card.getId())).isEmpty();
+    }
+    
+    @Test
+    void ingestedAndGeneratedTransactionsAreProcessedAndCredited() throws Exception {
+        CreditCard ingested = createCard();
+        CreditCard generated = createCard();
+        
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= 35; i++) {
+            body.append("{\"creditCardId\":").append(ingested.getId())
+                    .append(",\"amount\":").append(i * 37).append(".").append(String.format("%02d", i))
+                    .append(",\"merchant\":\"Pipeline ").append(i)
+                    .append("\",\"transactionDate\":\"").append(LocalDateTime.now().minusDays(i % 30).withNano(0))
+                    .append("\"}\n");
+        }
+        mockMvc.perform(post("/transactions/ingest").contentType("application/x-ndjson").content(body.toString()))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/transactions/generate").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"creditCardId\":" + generated.getId() + "}"))
+                .andExpect(status().is2xxSuccessful());
+        
+        await(() -> unprocessed(ingested) == 0 && unprocessed(generated) == 0
+                && pipeline.getStatus().getQueuedCards() == 0);
+        assertThat(transactionCount(ingested)).isEqualTo(35);
+        assertThat(transactionCount(generated)).isPositive();
+        assertCredited(ingested);
+        assertCredited(generated);
+        assertThat(pipeline.getStatus().getCardsFailed()).isZero();
+    }
+    
+    /**
+     * The card's balance is the sum of its transactions' points at the regular percentage
+     */
+    private void assertCredited(CreditCard card) {
+        long points = Points.ZERO;
+        for (BigDecimal amount : jdbcTemplate.queryForList(
+                "SELECT amount FROM transaction WHERE credit_card_id = ?", BigDecimal.class, card.getId())) {
+            points = Points.add(points, Points.accrue(amount, REGULAR_PERCENTAGE));
+        }
+        BigDecimal expected = Points.toBigDecimal(points);
+        assertThat(expected).isPositive();
+        assertThat(rewardRepository.findPointsBalanceByCreditCardId(card.getId()))
+                .hasValueSatisfying(balance -> assertThat(balance).isEqualByComparingTo(expected));
+    }
+    
+    private List<Transaction> transactions(CreditCard card, String... amounts) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (String amount : amounts) {
+            Transaction transaction = new Transaction();
+            transaction.setCreditCard(card);
+            transaction.setAmount(new BigDecimal(amount));
+            transaction.setMerchant("Pipeline");
+            transaction.setTransactionDate(LocalDateTime.now().minusDays(1));
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+    
+    private long unprocessed(CreditCard card) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction WHERE credit_card_id = ? AND processed = FALSE", Long.class, card.getId());
+    }
+    
+    private long transactionCount(CreditCard card) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction WHERE credit_card_id = ?", Long.class, card.getId());
+    }
+    
+    private CreditCard createCard() {
+        int n = ++cards;
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Pipeline Customer " + n);
+        customer.setEmail("pipeline" + n + "@aurumx.test");
+        customer.setPhone("9800000" + n);
+        // Regular rather than premium, which takes three years
+        customer.setAssociationDate(LocalDate.now().minusYears(1));
+        Long customerId = customerService.createCustomer(customer).getId();
+        
+        AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+        cardRequest.setCustomerId(customerId);
+        cardRequest.setCardNumber("48860" + String.format("%011d", n));
+        cardRequest.setCardHolderName("Pipeline Customer " + n);
+        cardRequest.setExpiryDate(LocalDate.now().plusYears(2));
+        return creditCardService.addCreditCard(cardRequest);
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.aurumx.repository;
+
+import com.aurumx.dto.request.GenerateDataRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Customer;
+import com.aurumx.entity.RewardCategory;
+import com.aurumx.entity.RewardItem;
+import com.aurumx.job.RewardAccrualJob;
+import com.aurumx.service.SyntheticDataService;
+import com.aurumx.support.SqlRecorder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every filtered statement the repositories issue must reach its rows through an index
+ * Generates a synthetic dataset, records the SQL of every endpoint and the accrual job, and runs
+ * EXPLAIN on each statement; a table scan in a statement with a WHERE clause fails the test.
+ * Statements without one (catalog snapshot, search index rebuild) read the whole table by design.
+ * H2 in MySQL mode stands in for MySQL, so this checks the declared indexes, not MySQL's optimizer.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.aurumx.support.SqlRecorder",
+        "aurumx.data-generator.enabled=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser(roles = "ADMIN_CES")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryIndexUsageTest {
+    
+    private static final int CUSTOMERS = 200;
+    private static final int CARDS_PER_CUSTOMER = 3;
+    private static final int TRANSACTIONS_PER_CARD = 10;
+    
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* public\\.(\\w+)\\.tablescan \\*/");
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private SyntheticDataService syntheticDataService;
+    
+    @Autowired
+    private RewardAccrualJob rewardAccrualJob;
+    
+    @Autowired
+    private CustomerRepository customerRepository;
+    
+    @Autowired
+    private CreditCardRepository creditCardRepository;
+    
+    @Autowired
+    private RewardCategoryRepository rewardCategoryRepository;
+    
+    @Autowired
+    private RewardItemRepository rewardItemRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private RewardCategory category;
+    private List<RewardItem> items;
+    
+    @BeforeAll
+    void generateDataset() throws Exception {
+        GenerateDataRequest request = new GenerateDataRequest();
+        request.setCustomers(CUSTOMERS);
+        request.setCardsPerCustomer(CARDS_PER_CUSTOMER);
+        request.setTransactionsPerCard(TRANSACTIONS_PER_CARD);
+        assertThat(syntheticDataService.trigger(request)).isTrue();
+        while (syntheticDataService.getStatus().isRunning()) {
+            Thread.sleep(100);
+        }
+        assertThat(syntheticDataService.getStatus().getError()).isNull();
+        
+        category = rewardCategoryRepository.save(new RewardCategory(null, "Plans", "Index test items", 1));
+        items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(rewardItemRepository.save(new RewardItem(null, category, "Plan item " + i, "Index test item", 1, true)));
+        }
+        
+        // Fresh statistics, so the optimizer sees the generated row counts
+        jdbcTemplate.execute("ANALYZE");
+    }
+    
+    @Test
+    void filteredStatementsUseAnIndex() throws Exception {
+        List<String> statements = record();
+        assertThat(statements)
+                .anyMatch(sql -> sql.contains(" from transaction "))
+                .anyMatch(sql -> sql.contains(" from redemption_history "))
+                .anyMatch(sql -> sql.contains(" from customer "));
+        
+        List<String> scans = new ArrayList<>();
+        for (String sql : statements) {
+            String lower = sql.toLowerCase(Locale.ROOT);
+            if (!(lower.startsWith("select") || lower.startsWith("update") || lower.startsWith("delete"))
+                    || !lower.contains(" where ")) {
+                continue;
+            }
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class).toLowerCase(Locale.ROOT);
+            Matcher scan = TABLE_SCAN.matcher(plan);
+            while (scan.find()) {
+                scans.add(scan.group(1) + ": " + sql);
+            }
+        }
+        
+        assertThat(scans).isEmpty();
+    }
+    
+    /**
+     * Every endpoint that reads or writes through a repository, and the accrual job
+     * @return the distinct statements they sent
+     */
+    private List<String> record() throws Exception {
+        Customer customer = customerRepository.findAll(PageRequest.of(7, 1, Sort.by("id"))).getContent().get(0);
+        Long customerId = customer.getId();
+        CreditCard card = creditCardRepository.findByCustomerId(customerId).get(0);
+        Long cardId = card.getId();
+        
+        List<String> statements;
+        SqlRecorder.start();
+        try {
+            rewardAccrualJob.run();
+            
+            call(get("/customers").param("size", "20"));
+            call(get("/customers/cursor").param("size", "20"));
+            call(get("/customers/" + customerId));
+            call(get("/customers/search/name").param("name", customer.getName()));
+            call(get("/customers/search/card").param("cardNumber", card.getCardNumber().substring(0, 8)));
+            call(get("/credit-cards/customer/" + customerId));
+            
+            call(post("/transactions/generate").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"creditCardId\":" + cardId + "}"));
+            call(post("/transactions/ingest").contentType("application/x-ndjson")
+                    .content("{\"creditCardId\":" + cardId + ",\"amount\":12.50,\"merchant\":\"Plan\","
+                            + "\"transactionDate\":\"" + LocalDateTime.now().withNano(0) + "\"}\n"));
+            call(get("/transactions/card/" + cardId).param("size", "10"));
+            call(get("/transactions/card/" + cardId + "/cursor").param("size", "10"));
+            
+            call(post("/rewards/process/card/" + cardId));
+            call(post("/transactions/generate").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"creditCardId\":" + cardId + "}"));
+            call(post("/rewards/process/" + customerId));
+            call(get("/rewards/balance/" + customerId));
+            call(get("/rewards/catalog/categories"));
+            call(get("/rewards/catalog/items"));
+            call(get("/rewards/catalog/category/" + category.getId()));
+            call(get("/catalog/items"));
+            
+            for (RewardItem item : items) {
+                call(post("/cart/add").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":" + customerId + ",\"rewardItemId\":" + item.getId() + ",\"quantity\":1}"));
+            }
+            call(put("/cart/" + customerId).contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"items\":[{\"rewardItemId\":" + items.get(0).getId() + ",\"quantity\":2},"
+                            + "{\"rewardItemId\":" + items.get(1).getId() + ",\"quantity\":1}]}"));
+            call(get("/cart/" + customerId));
+            call(post("/cart/" + customerId + "/redeem").param("creditCardId", String.valueOf(cardId))
+                    .header("Idempotency-Key", "index-usage-redeem"));
+            call(get("/cart/redemption-history/" + customerId));
+            call(get("/rewards/history/" + customerId));
+            
+            call(post("/rewards/summary/reconcile"));
+            call(get("/rewards/accrual-job/status"));
+        } finally {
+            statements = SqlRecorder.stop();
+        }
+        return statements;
+    }
+    
+    private void call(RequestBuilder request) throws Exception {
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+    }
+}
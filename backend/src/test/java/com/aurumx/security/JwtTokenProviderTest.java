@@ -0,0 +1,95 @@
+package com.aurumx.security;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A bearer token signed with another key must be rejected as a bad signature: counted once,
+ * logged through the rate-limited WARN line, and never as an ERROR with a stack trace
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwtTokenProviderTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Logger securityLogger = (Logger) LoggerFactory.getLogger("com.aurumx.security");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    
+    @BeforeEach
+    void captureLogs() {
+        appender.start();
+        securityLogger.addAppender(appender);
+    }
+    
+    @AfterEach
+    void releaseLogs() {
+        securityLogger.detachAppender(appender);
+    }
+    
+    @Test
+    void tokenSignedWithAnotherKeyIsRejectedAsBadSignature() {
+        double before = signatureRejections();
+        
+        assertThat(tokenProvider.validateAndGetUsername(forgedToken())).isNull();
+        
+        assertThat(signatureRejections()).isEqualTo(before + 1);
+        assertThat(appender.list).noneMatch(event -> event.getLevel() == Level.ERROR);
+    }
+    
+    @Test
+    void requestWithForgedTokenIsUnauthenticatedWithoutErrorLog() throws Exception {
+        double before = signatureRejections();
+        
+        mockMvc.perform(get("/customers").header("Authorization", "Bearer " + forgedToken()))
+                .andExpect(status().is4xxClientError());
+        
+        assertThat(signatureRejections()).isEqualTo(before + 1);
+        assertThat(appender.list).noneMatch(event -> event.getLevel() == Level.ERROR);
+    }
+    
+    private static String forgedToken() {
+        return Jwts.builder()
+                .subject("admin")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("another-key-that-is-long-enough-for-hmac-sha-256-signing"
+                        .getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+    
+    private double signatureRejections() {
+        Counter counter = meterRegistry.find("aurumx.jwt.rejected").tag("reason", "signature").counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,160 @@
+package com.aurumx.service;
+
+import com.aurumx.AurumxApplication;
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.job.RewardAccrualJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Several nodes sharing one database must split the accrual partitions between them without
+ * overlap, hand a leaving node's partitions to the rendezvous winners among the rest, and take
+ * over a crashed node's partitions once its leases expire
+ */
+class AccrualPartitionServiceMultiNodeTest {
+    
+    private static final int PARTITIONS = 16;
+    private static final int LEASE_TTL_SECONDS = 3;
+    private static final long TIMEOUT_MILLIS = 30_000;
+    
+    private final String databaseUrl = "jdbc:h2:mem:multinode-" + UUID.randomUUID()
+            + ";DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,TRANSACTION;LOCK_TIMEOUT=20000";
+    private final Map<String, ConfigurableApplicationContext> nodes = new LinkedHashMap<>();
+    
+    @AfterEach
+    void stopNodes() {
+        nodes.values().forEach(ConfigurableApplicationContext::close);
+        nodes.clear();
+    }
+    
+    @Test
+    void partitionsAreSplitWithoutOverlapAndMoveOnlyFromALeavingNode() throws Exception {
+        startNodes("node-a", "node-b", "node-c");
+        awaitCoverage(List.of("node-a", "node-b", "node-c"));
+        Map<String, Set<Integer>> before = ownership();
+        assertThat(before.values()).allSatisfy(owned -> assertThat(owned).isNotEmpty());
+        
+        // Graceful shutdown releases the leases at once
+        nodes.remove("node-c").close();
+        awaitCoverage(List.of("node-a", "node-b"));
+        
+        // Rendezvous hashing: the remaining nodes keep what they had and only node-c's share moves
+        Map<String, Set<Integer>> after = ownership();
+        assertThat(after.get("node-a")).containsAll(before.get("node-a"));
+        assertThat(after.get("node-b")).containsAll(before.get("node-b"));
+    }
+    
+    @Test
+    void crashedNodePartitionsAreTakenOverAfterTheLeaseExpires() throws Exception {
+        startNodes("node-a", "node-b", "node-c");
+        awaitCoverage(List.of("node-a", "node-b", "node-c"));
+        Map<String, Set<Integer>> before = ownership();
+        List<Long> cards = createCards(PARTITIONS * 2);
+        
+        // A crash: node-c stops heartbeating and renewing but never releases its leases
+        nodes.get("node-c").getBean(ThreadPoolTaskScheduler.class).shutdown();
+        assertThat(leasedTo("node-c")).containsExactlyInAnyOrderElementsOf(before.get("node-c"));
+        
+        awaitCoverage(List.of("node-a", "node-b"));
+        assertThat(leasedTo("node-c")).isEmpty();
+        assertThat(owned("node-c")).isEmpty();
+        Map<String, Set<Integer>> after = ownership();
+        assertThat(after.get("node-a")).containsAll(before.get("node-a"));
+        assertThat(after.get("node-b")).containsAll(before.get("node-b"));
+        
+        // The survivors' jobs now walk node-c's partitions too
+        for (Long cardId : cards) {
+            nodes.get("node-a").getBean(TransactionService.class).generateTransactions(cardId);
+        }
+        nodes.get("node-a").getBean(RewardAccrualJob.class).run();
+        nodes.get("node-b").getBean(RewardAccrualJob.class).run();
+        
+        JdbcTemplate jdbc = nodes.get("node-a").getBean(JdbcTemplate.class);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM transaction WHERE processed = false", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM reward WHERE points_balance <> "
+                + "(SELECT SUM(t.reward_points) FROM transaction t WHERE t.credit_card_id = reward.credit_card_id)",
+                Long.class)).isZero();
+    }
+    
+    private void startNodes(String... nodeIds) {
+        for (String nodeId : nodeIds) {
+            nodes.put(nodeId, new SpringApplicationBuilder(AurumxApplication.class)
+                    .profiles("test")
+                    .run("--spring.main.web-application-type=none",
+                            "--spring.datasource.url=" + databaseUrl,
+                            // Every node starts against the same schema; create-drop would drop it under the others
+                            "--spring.jpa.hibernate.ddl-auto=update",
+                            "--aurumx.accrual-partitions.enabled=true",
+                            "--aurumx.accrual-partitions.partitions=" + PARTITIONS,
+                            "--aurumx.accrual-partitions.node-id=" + nodeId,
+                            "--aurumx.accrual-partitions.lease-ttl-seconds=" + LEASE_TTL_SECONDS,
+                            "--aurumx.accrual-partitions.renew-interval-ms=200"));
+        }
+    }
+    
+    /**
+     * Wait until the given nodes together own every partition, each exactly once
+     */
+    private void awaitCoverage(List<String> nodeIds) throws InterruptedException {
+        await(() -> {
+            List<Integer> owned = new ArrayList<>();
+            nodeIds.forEach(nodeId -> owned.addAll(owned(nodeId)));
+            return owned.size() == PARTITIONS && new HashSet<>(owned).size() == PARTITIONS;
+        });
+    }
+    
+    private Map<String, Set<Integer>> ownership() {
+        Map<String, Set<Integer>> ownership = new HashMap<>();
+        nodes.keySet().forEach(nodeId -> ownership.put(nodeId, owned(nodeId)));
+        return ownership;
+    }
+    
+    private Set<Integer> owned(String nodeId) {
+        return Set.copyOf(nodes.get(nodeId).getBean(AccrualPartitionService.class).getOwnedPartitions());
+    }
+    
+    private List<Integer> leasedTo(String nodeId) {
+        return nodes.get("node-a").getBean(JdbcTemplate.class).queryForList(
+                "SELECT partition_id FROM accrual_partition_lease WHERE owner = ?", Integer.class, nodeId);
+    }
+    
+    private List<Long> createCards(int count) {
+        ConfigurableApplicationContext node = nodes.get("node-a");
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Partitioned Customer");
+        customer.setEmail("partitioned@aurumx.test");
+        customer.setPhone("9500000000");
+        customer.setAssociationDate(LocalDate.now().minusYears(4));
+        Long customerId = node.getBean(CustomerService.class).createCustomer(customer).getId();
+        
+        List<Long> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            AddCreditCardRequest card = new AddCreditCardRequest();
+            card.setCustomerId(customerId);
+            card.setCardNumber("49990" + String.format("%011d", i));
+            card.setCardHolderName("Partitioned Customer");
+            card.setExpiryDate(LocalDate.now().plusYears(2));
+            cards.add(node.getBean(CreditCardService.class).addCreditCard(card).getId());
+        }
+        return cards;
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.aurumx.service;
+
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.AddToCartRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.dto.response.RedemptionResponse;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.Reward;
+import com.aurumx.entity.RewardCategory;
+import com.aurumx.entity.RewardItem;
+import com.aurumx.exception.IdempotencyKeyConflictException;
+import com.aurumx.repository.RewardCategoryRepository;
+import com.aurumx.repository.RewardItemRepository;
+import com.aurumx.repository.RewardRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * A redemption retried with the same Idempotency-Key must replay the original response once the
+ * cart is empty, and be refused as a different request once the cart holds other lines
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CartServiceIdempotencyTest {
+    
+    private static final int BALANCE = 1_000;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private CreditCardService creditCardService;
+    
+    @Autowired
+    private RewardRepository rewardRepository;
+    
+    @Autowired
+    private RewardCategoryRepository rewardCategoryRepository;
+    
+    @Autowired
+    private RewardItemRepository rewardItemRepository;
+    
+    @Autowired
+    private RewardSummaryService rewardSummaryService;
+    
+    private RewardItem first;
+    private RewardItem second;
+    private int cards;
+    
+    @BeforeAll
+    void createItems() {
+        RewardCategory category = rewardCategoryRepository.save(
+                new RewardCategory(null, "Replay", "Idempotent redemption items", 1));
+        first = rewardItemRepository.save(new RewardItem(null, category, "Replay item 1", "Replay item", 10, true));
+        second = rewardItemRepository.save(new RewardItem(null, category, "Replay item 2", "Replay item", 20, true));
+    }
+    
+    @Test
+    void retryAfterTheRedemptionReplaysIt() {
+        CreditCard card = createCard();
+        Long customerId = card.getCustomer().getId();
+        add(customerId, first, 2);
+        
+        RedemptionResponse redeemed = cartService.redeemCart(customerId, card.getId(), "replay-empty");
+        RedemptionResponse replayed = cartService.redeemCart(customerId, card.getId(), "replay-empty");
+        
+        assertThat(replayed.getRedemptionId()).isEqualTo(redeemed.getRedemptionId());
+        assertThat(cartService.getRedemptionHistory(customerId)).hasSize(1);
+        assertThat(balanceOf(card)).isEqualByComparingTo(BigDecimal.valueOf(BALANCE - 20));
+    }
+    
+    @Test
+    void retryAfterTheCartChangedIsRefused() {
+        CreditCard card = createCard();
+        Long customerId = card.getCustomer().getId();
+        add(customerId, first, 2);
+        cartService.redeemCart(customerId, card.getId(), "replay-changed");
+        add(customerId, second, 1);
+        
+        assertThatThrownBy(() -> cartService.redeemCart(customerId, card.getId(), "replay-changed"))
+                .isInstanceOfSatisfying(IdempotencyKeyConflictException.class,
+                        ex -> assertThat(ex.isInProgress()).isFalse());
+        
+        // Neither replayed nor redeemed: the new line is still in the cart and the card was debited once
+        assertThat(cartService.getCart(customerId).getItems()).hasSize(1);
+        assertThat(cartService.getRedemptionHistory(customerId)).hasSize(1);
+        assertThat(balanceOf(card)).isEqualByComparingTo(BigDecimal.valueOf(BALANCE - 20));
+    }
+    
+    private void add(Long customerId, RewardItem item, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setCustomerId(customerId);
+        request.setRewardItemId(item.getId());
+        request.setQuantity(quantity);
+        cartService.addToCart(request);
+    }
+    
+    private BigDecimal balanceOf(CreditCard card) {
+        return rewardRepository.findPointsBalanceByCreditCardId(card.getId()).orElseThrow();
+    }
+    
+    private CreditCard createCard() {
+        int n = ++cards;
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Replay Customer " + n);
+        customer.setEmail("replay" + n + "@aurumx.test");
+        customer.setPhone("9600000" + n);
+        customer.setAssociationDate(LocalDate.now().minusYears(1));
+        Long customerId = customerService.createCustomer(customer).getId();
+        
+        AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+        cardRequest.setCustomerId(customerId);
+        cardRequest.setCardNumber("48870" + String.format("%011d", n));
+        cardRequest.setCardHolderName("Replay Customer " + n);
+        cardRequest.setExpiryDate(LocalDate.now().plusYears(2));
+        CreditCard card = creditCardService.addCreditCard(cardRequest);
+        
+        Reward reward = new Reward();
+        reward.setCreditCard(card);
+        reward.setCustomer(card.getCustomer());
+        reward.setPointsBalance(BigDecimal.valueOf(BALANCE));
+        reward.setLifetimeEarned(BigDecimal.valueOf(BALANCE));
+        rewardRepository.save(reward);
+        rewardSummaryService.rebuild(customerId);
+        return card;
+    }
+}
@@ -0,0 +1,179 @@
+package com.aurumx.service;
+
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.AddToCartRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.RedemptionHistory;
+import com.aurumx.entity.Reward;
+import com.aurumx.entity.RewardCategory;
+import com.aurumx.entity.RewardItem;
+import com.aurumx.exception.BusinessRuleViolationException;
+import com.aurumx.exception.InsufficientRewardBalanceException;
+import com.aurumx.repository.RewardCategoryRepository;
+import com.aurumx.repository.RewardItemRepository;
+import com.aurumx.repository.RewardRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads redeeming against one card must never overspend it
+ * Every debit that succeeded is in the redemption history, and the balance is what remains
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CartServiceRedemptionStressTest {
+    
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+    private static final int ITEM_COST = 7;
+    private static final int BALANCE = 500;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private CreditCardService creditCardService;
+    
+    @Autowired
+    private RewardRepository rewardRepository;
+    
+    @Autowired
+    private RewardCategoryRepository rewardCategoryRepository;
+    
+    @Autowired
+    private RewardItemRepository rewardItemRepository;
+    
+    @Autowired
+    private RewardSummaryService rewardSummaryService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void concurrentRedemptionsNeverOverspendTheCard() throws Exception {
+        CreditCard card = createCard("redeem");
+        Long customerId = card.getCustomer().getId();
+        RewardCategory category = rewardCategoryRepository.save(
+                new RewardCategory(null, "Stress", "Redemption stress items", 1));
+        RewardItem item = rewardItemRepository.save(
+                new RewardItem(null, category, "Stress item", "Redemption stress item", ITEM_COST, true));
+        
+        AtomicInteger refused = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                AddToCartRequest request = new AddToCartRequest();
+                request.setCustomerId(customerId);
+                request.setRewardItemId(item.getId());
+                request.setQuantity(1);
+                cartService.addToCart(request);
+                try {
+                    cartService.redeemCart(customerId, card.getId());
+                } catch (InsufficientRewardBalanceException | BusinessRuleViolationException ex) {
+                    // Out of points, or another thread already redeemed the cart
+                    refused.incrementAndGet();
+                }
+            }
+        });
+        
+        BigDecimal redeemed = cartService.getRedemptionHistory(customerId).stream()
+                .map(RedemptionHistory::getTotalPointsUsed)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal balance = balanceOf(card);
+        
+        assertThat(balance).isNotNegative();
+        assertThat(balance.add(redeemed)).isEqualByComparingTo(BigDecimal.valueOf(BALANCE));
+        assertThat(refused.get()).isPositive();
+        assertThat(rewardSummaryService.getSummary(customerId).getPointsBalance()).isEqualByComparingTo(balance);
+    }
+    
+    /**
+     * The conditional debit on its own, as redemptions on different nodes issue it, without the
+     * in-process cart lock serialising them first
+     */
+    @Test
+    void concurrentDebitsNeverOverspendTheCard() throws Exception {
+        CreditCard card = createCard("debit");
+        
+        AtomicInteger debited = new AtomicInteger();
+        runConcurrently(() -> {
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                Integer rows = transactionTemplate.execute(status -> rewardRepository.debitPoints(
+                        card.getId(), BigDecimal.valueOf(ITEM_COST), LocalDateTime.now()));
+                debited.addAndGet(rows);
+            }
+        });
+        
+        BigDecimal balance = balanceOf(card);
+        
+        assertThat(balance).isNotNegative();
+        assertThat(debited.get()).isEqualTo(BALANCE / ITEM_COST);
+        assertThat(balance).isEqualByComparingTo(BigDecimal.valueOf(BALANCE % ITEM_COST));
+    }
+    
+    private BigDecimal balanceOf(CreditCard card) {
+        return rewardRepository.findPointsBalanceByCreditCardId(card.getId()).orElseThrow();
+    }
+    
+    private CreditCard createCard(String name) {
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Stress " + name);
+        customer.setEmail("stress-" + name + "@aurumx.test");
+        customer.setPhone("9200000000");
+        customer.setAssociationDate(LocalDate.now().minusYears(1));
+        Long customerId = customerService.createCustomer(customer).getId();
+        
+        AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+        cardRequest.setCustomerId(customerId);
+        cardRequest.setCardNumber("4999" + String.format("%012d", Math.abs(name.hashCode())));
+        cardRequest.setCardHolderName("Stress " + name);
+        cardRequest.setExpiryDate(LocalDate.now().plusYears(2));
+        CreditCard card = creditCardService.addCreditCard(cardRequest);
+        
+        Reward reward = new Reward();
+        reward.setCreditCard(card);
+        reward.setCustomer(card.getCustomer());
+        reward.setPointsBalance(BigDecimal.valueOf(BALANCE));
+        reward.setLifetimeEarned(BigDecimal.valueOf(BALANCE));
+        rewardRepository.save(reward);
+        rewardSummaryService.rebuild(customerId);
+        return card;
+    }
+    
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.aurumx.service;
+
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.entity.RewardCategory;
+import com.aurumx.entity.RewardItem;
+import com.aurumx.repository.RewardCategoryRepository;
+import com.aurumx.repository.RewardItemRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cart line ids drawn from the table-backed sequence MySQL uses must be unique and reach the
+ * database unchanged, a redemption must leave behind what was added to a line while it ran,
+ * a line merged into another node's row must take over that row's id, adding to a line
+ * already in the cart must not reach the database, and the upsert must avoid VALUES() where it is deprecated
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.dialect=com.aurumx.support.TableSequenceH2Dialect")
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CartStoreTest {
+    
+    private static final int CUSTOMERS = 4;
+    // 240 lines drawn by four threads refill the pool of 50 ids several times
+    private static final int ITEMS = 60;
+    private static final long TIMEOUT_MILLIS = 30_000;
+    
+    @Autowired
+    private CartStore cartStore;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private RewardCategoryRepository rewardCategoryRepository;
+    
+    @Autowired
+    private RewardItemRepository rewardItemRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private final List<RewardItem> items = new ArrayList<>();
+    private int customers;
+    
+    @BeforeAll
+    void createItems() {
+        RewardCategory category = rewardCategoryRepository.save(new RewardCategory(null, "Lines", "Cart store items", 1));
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(rewardItemRepository.save(new RewardItem(null, category, "Line item " + i, "Cart store item", 1, true)));
+        }
+    }
+    
+    @Test
+    void lineIdsFromTheSequenceTableAreUniqueAndWrittenUnchanged() throws Exception {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'cart_item_seq'", Long.class))
+                .isOne();
+        
+        List<Long> customerIds = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customerIds.add(createCustomer());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(CUSTOMERS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Long customerId : customerIds) {
+                futures.add(executor.submit(() -> items.forEach(item -> cartStore.addLine(customerId, item.getId(), 1))));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        Set<Long> lineIds = new HashSet<>();
+        customerIds.forEach(customerId -> cartStore.getLines(customerId).forEach(line -> lineIds.add(line.id())));
+        assertThat(lineIds).hasSize(CUSTOMERS * ITEMS);
+        
+        await(() -> storedLineIds(customerIds).size() == CUSTOMERS * ITEMS);
+        assertThat(storedLineIds(customerIds)).containsExactlyInAnyOrderElementsOf(lineIds);
+    }
+    
+    @Test
+    void redemptionKeepsQuantityAddedWhileItRan() throws Exception {
+        Long customerId = createCustomer();
+        Long rewardItemId = items.get(0).getId();
+        Long lineId = cartStore.addLine(customerId, rewardItemId, 2).id();
+        await(() -> storedQuantity(lineId) == 2);
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            List<CartStore.CartLine> lines = cartStore.lockForRedemption(customerId);
+            // Changes in memory only take the cart lock, so they go through while the redemption holds the write lock
+            cartStore.addLine(customerId, rewardItemId, 1);
+            cartStore.consume(customerId, lines);
+        });
+        
+        assertThat(cartStore.getLines(customerId))
+                .singleElement()
+                .satisfies(line -> {
+                    assertThat(line.id()).isEqualTo(lineId);
+                    assertThat(line.quantity()).isOne();
+                });
+        // The redeemed row was deleted, so the remainder is inserted again
+        await(() -> storedQuantity(lineId) == 1);
+    }
+    
+    @Test
+    void insertMergedIntoAnotherNodesRowTakesOverThatRow() throws Exception {
+        Long customerId = createCustomer();
+        Long rewardItemId = items.get(1).getId();
+        assertThat(cartStore.getLines(customerId)).isEmpty();
+        
+        // Another node writes a line for the same reward item after this node loaded the cart
+        long otherLineId = 900_000_000L + customerId;
+        jdbcTemplate.update("INSERT INTO cart_item (id, customer_id, reward_item_id, quantity, added_at) VALUES (?, ?, ?, 3, ?)",
+                otherLineId, customerId, rewardItemId, LocalDateTime.now());
+        cartStore.addLine(customerId, rewardItemId, 2);
+        await(() -> storedQuantity(otherLineId) == 5);
+        
+        assertThat(cartStore.getLines(customerId))
+                .singleElement()
+                .satisfies(line -> {
+                    assertThat(line.id()).isEqualTo(otherLineId);
+                    assertThat(line.quantity()).isEqualTo(5);
+                });
+        
+        // Statements by id reach the merged row, so the redemption deletes it instead of conflicting
+        transactionTemplate.executeWithoutResult(status ->
+                cartStore.consume(customerId, cartStore.lockForRedemption(customerId)));
+        assertThat(storedQuantity(otherLineId)).isZero();
+        assertThat(cartStore.getLines(customerId)).isEmpty();
+    }
+    
+    @Test
+    void addingToALineTouchesNoDatabase() throws Exception {
+        Long customerId = createCustomer();
+        Long rewardItemId = items.get(2).getId();
+        cartStore.addLine(customerId, rewardItemId, 1);
+        
+        // Holds the cart's write lock, so the background writer leaves this cart alone meanwhile
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> redemption = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            cartStore.lockForRedemption(customerId);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertThat(locked.await(30, TimeUnit.SECONDS)).isTrue();
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            for (int i = 0; i < 20; i++) {
+                cartStore.addLine(customerId, rewardItemId, 1);
+            }
+            
+            assertThat(statistics.getPrepareStatementCount()).isZero();
+            assertThat(statistics.getTransactionCount()).isZero();
+            assertThat(statistics.getConnectCount()).isZero();
+        } finally {
+            release.countDown();
+            redemption.get(30, TimeUnit.SECONDS);
+            executor.shutdownNow();
+        }
+        assertThat(cartStore.getLines(customerId)).singleElement()
+                .satisfies(line -> assertThat(line.quantity()).isEqualTo(21));
+    }
+    
+    @Test
+    void upsertUsesTheRowAliasWhereMySqlSupportsIt() {
+        assertThat(CartStore.insertSql("MySQL", "8.0.36")).contains("AS new").doesNotContain("VALUES(quantity)");
+        assertThat(CartStore.insertSql("MySQL", "9.0.1")).contains("AS new");
+        assertThat(CartStore.insertSql("MySQL", "8.0.18")).contains("VALUES(quantity)");
+        assertThat(CartStore.insertSql("MySQL", "5.5.5-10.11.6-MariaDB")).contains("VALUES(quantity)");
+        assertThat(CartStore.insertSql("H2", "2.2.224 (2023-09-17)")).contains("VALUES(quantity)");
+    }
+    
+    private Long createCustomer() {
+        int n = ++customers;
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Line Customer " + n);
+        customer.setEmail("line" + n + "@aurumx.test");
+        customer.setPhone("9700000" + n);
+        customer.setAssociationDate(LocalDate.now().minusYears(1));
+        return customerService.createCustomer(customer).getId();
+    }
+    
+    private List<Long> storedLineIds(List<Long> customerIds) {
+        return jdbcTemplate.queryForList("SELECT id FROM cart_item WHERE customer_id IN ("
+                + String.join(",", Collections.nCopies(customerIds.size(), "?")) + ")", Long.class, customerIds.toArray());
+    }
+    
+    private int storedQuantity(Long lineId) {
+        return jdbcTemplate.queryForList("SELECT quantity FROM cart_item WHERE id = ?", Integer.class, lineId)
+                .stream().findFirst().orElse(0);
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+}
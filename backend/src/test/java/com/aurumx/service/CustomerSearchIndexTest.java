@@ -0,0 +1,325 @@
+package com.aurumx.service;
+
+import com.aurumx.config.CustomerSearchConfig;
+import com.aurumx.entity.Customer;
+import com.aurumx.repository.CreditCardRepository;
+import com.aurumx.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Index searches must return what a contains scan of every active customer returns, in ascending
+ * order: for terms too short for a trigram, for terms that would only match across two fields,
+ * after deletions and card additions, and for changes made while a rebuild was loading
+ */
+class CustomerSearchIndexTest {
+    
+    private static final String[] SYLLABLES = {"an", "na", "bo", "ri", "ka", "mel", "ton", "sa", "li", "ve"};
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789@.";
+    
+    private final Random random = new Random(42);
+    private final TreeMap<Long, CustomerRow> customers = new TreeMap<>();
+    private final List<CardRow> cards = new ArrayList<>();
+    // Runs inside the first customer page query of a rebuild, before its rows are returned
+    private Runnable duringLoad = () -> { };
+    
+    private CustomerSearchIndex searchIndex;
+    
+    @BeforeEach
+    void createIndex() {
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        CreditCardRepository creditCardRepository = mock(CreditCardRepository.class);
+        when(customerRepository.findSearchFieldsAfter(anyLong(), any(Pageable.class))).thenAnswer(call -> {
+            List<CustomerRow> page = page(customers.values(), CustomerRow::getId, call.getArgument(0), call.getArgument(1));
+            if (call.<Long>getArgument(0) == Long.MIN_VALUE) {
+                duringLoad.run();
+            }
+            return page;
+        });
+        when(creditCardRepository.findCardNumbersAfter(anyLong(), any(Pageable.class))).thenAnswer(call ->
+                page(cards, CardRow::getId, call.getArgument(0), call.getArgument(1)));
+        
+        CustomerSearchConfig searchConfig = new CustomerSearchConfig();
+        // Several pages per load
+        searchConfig.setLoadBatchSize(7);
+        searchIndex = new CustomerSearchIndex(customerRepository, creditCardRepository, searchConfig);
+    }
+    
+    @Test
+    void searchesMatchAContainsScan() {
+        for (int i = 0; i < 200; i++) {
+            saveCustomer(3L * i + 1, randomName(), randomName() + i + "@mail.test", "9" + (1_000_000 + random.nextInt(9_000_000)));
+            for (int c = random.nextInt(3); c > 0; c--) {
+                addCard(3L * i + 1, randomCardNumber());
+            }
+        }
+        assertThat(searchIndex.isReady()).isFalse();
+        searchIndex.rebuild();
+        assertThat(searchIndex.isReady()).isTrue();
+        assertSearchesMatchScan();
+        
+        // Renames, deletions and new cards through the node's own writes
+        List<Long> ids = new ArrayList<>(customers.keySet());
+        for (int i = 0; i < 60; i++) {
+            Long id = ids.get(random.nextInt(ids.size()));
+            if (!customers.containsKey(id)) {
+                continue;
+            }
+            switch (i % 3) {
+                case 0 -> saveCustomer(id, randomName(), customers.get(id).getEmail(), customers.get(id).getPhone());
+                case 1 -> deleteCustomer(id);
+                default -> addCard(id, randomCardNumber());
+            }
+        }
+        assertSearchesMatchScan();
+    }
+    
+    @Test
+    void shortTermsScanEveryDocument() {
+        saveCustomer(1L, "Al", "al@x.io", "9100000");
+        saveCustomer(2L, "Bo", "bo@x.io", "9200000");
+        addCard(2L, "4111000011112222");
+        searchIndex.rebuild();
+        
+        assertThat(searchIndex.searchCustomers("a")).containsExactly(1L);
+        assertThat(searchIndex.searchCustomers("B")).containsExactly(2L);
+        assertThat(searchIndex.searchCustomers("x.")).containsExactly(1L, 2L);
+        assertThat(searchIndex.searchByCardNumber("22")).containsExactly(2L);
+        assertThat(searchIndex.searchByCardNumber("9")).isEmpty();
+    }
+    
+    @Test
+    void termsSpanningTwoFieldsMatchNothing() {
+        saveCustomer(1L, "Anna", "bob@x.io", "9100000");
+        addCard(1L, "1111222233334444");
+        addCard(1L, "5555666677778888");
+        searchIndex.rebuild();
+        
+        // End of the name plus start of the email, and of the email plus the phone
+        assertThat(searchIndex.searchCustomers("nab")).isEmpty();
+        assertThat(searchIndex.searchCustomers("annabob")).isEmpty();
+        assertThat(searchIndex.searchCustomers("ab")).isEmpty();
+        assertThat(searchIndex.searchCustomers("io91")).isEmpty();
+        // End of one card plus start of the next
+        assertThat(searchIndex.searchByCardNumber("44445555")).isEmpty();
+        assertThat(searchIndex.searchByCardNumber("45")).isEmpty();
+        
+        assertThat(searchIndex.searchCustomers("nna")).containsExactly(1L);
+        assertThat(searchIndex.searchByCardNumber("7778888")).containsExactly(1L);
+    }
+    
+    @Test
+    void changesDuringARebuildAreReplayedOntoTheNewIndex() {
+        saveCustomer(1L, "Carla Mendes", "carla@mail.test", "9100001");
+        saveCustomer(2L, "Dario Fonseca", "dario@mail.test", "9100002");
+        searchIndex.rebuild();
+        
+        // The page being loaded predates these writes, so only the replay puts them in the new index
+        duringLoad = () -> {
+            saveCustomer(3L, "Elena Prates", "elena@mail.test", "9100003");
+            addCard(3L, "4000123412341234");
+            deleteCustomer(2L);
+            saveCustomer(1L, "Carla Nogueira", "carla@mail.test", "9100001");
+        };
+        searchIndex.rebuild();
+        duringLoad = () -> { };
+        
+        assertThat(searchIndex.searchCustomers("prates")).containsExactly(3L);
+        assertThat(searchIndex.searchByCardNumber("1234")).containsExactly(3L);
+        assertThat(searchIndex.searchCustomers("dario")).isEmpty();
+        assertThat(searchIndex.searchCustomers("nogueira")).containsExactly(1L);
+        assertThat(searchIndex.searchCustomers("mendes")).isEmpty();
+        assertSearchesMatchScan();
+    }
+    
+    @Test
+    void deletedCustomersAreFilteredOut() {
+        saveCustomer(1L, "Fabio Reis", "fabio@mail.test", "9100001");
+        saveCustomer(2L, "Fabiana Reis", "fabiana@mail.test", "9100002");
+        addCard(1L, "4000555566667777");
+        addCard(2L, "4000555588889999");
+        searchIndex.rebuild();
+        
+        deleteCustomer(1L);
+        
+        assertThat(searchIndex.searchCustomers("fabi")).containsExactly(2L);
+        assertThat(searchIndex.searchCustomers("re")).containsExactly(2L);
+        assertThat(searchIndex.searchByCardNumber("40005555")).containsExactly(2L);
+        assertThat(searchIndex.searchByCardNumber("6666")).isEmpty();
+        assertSearchesMatchScan();
+    }
+    
+    @Test
+    void resultsStayAscendingAfterAddCard() {
+        for (long id = 1; id <= 10; id++) {
+            saveCustomer(id, "Customer " + id, "c" + id + "@mail.test", "910000" + id);
+            addCard(id, "4000" + String.format("%012d", id));
+        }
+        searchIndex.rebuild();
+        
+        // Lower ids gain cards after higher ones, so their postings are inserted rather than appended
+        for (long id = 10; id >= 1; id -= 3) {
+            addCard(id, "5999000000" + String.format("%06d", id));
+        }
+        
+        assertThat(searchIndex.searchByCardNumber("5999")).containsExactly(1L, 4L, 7L, 10L);
+        assertThat(searchIndex.searchByCardNumber("0000")).isSorted().hasSize(10);
+        assertSearchesMatchScan();
+    }
+    
+    /**
+     * Every substring of every stored field up to six characters, plus random terms that mostly miss
+     */
+    private void assertSearchesMatchScan() {
+        Set<String> terms = new TreeSet<>();
+        customers.values().forEach(customer -> Stream.of(customer.getName(), customer.getEmail(), customer.getPhone())
+                .forEach(field -> terms.addAll(sampleSubstrings(field.toLowerCase(Locale.ROOT)))));
+        Set<String> cardTerms = new TreeSet<>();
+        cards.forEach(card -> cardTerms.addAll(sampleSubstrings(card.getCardNumber())));
+        for (int i = 0; i < 200; i++) {
+            terms.add(randomTerm());
+            cardTerms.add(String.valueOf(random.nextInt(100_000)));
+        }
+        
+        for (String term : terms) {
+            assertThat(searchIndex.searchCustomers(term)).as(term).isEqualTo(scanCustomers(term));
+            assertThat(searchIndex.searchCustomers(term.toUpperCase(Locale.ROOT))).as(term).isEqualTo(scanCustomers(term));
+        }
+        for (String term : cardTerms) {
+            assertThat(searchIndex.searchByCardNumber(term)).as(term).isEqualTo(scanCards(term));
+        }
+    }
+    
+    private List<Long> scanCustomers(String term) {
+        // Searches trim the term, and the sampled substrings include spaces from names
+        String trimmed = term.trim();
+        return customers.values().stream()
+                .filter(customer -> Stream.of(customer.getName(), customer.getEmail(), customer.getPhone())
+                        .anyMatch(field -> field.toLowerCase(Locale.ROOT).contains(trimmed)))
+                .map(CustomerRow::getId)
+                .toList();
+    }
+    
+    private List<Long> scanCards(String term) {
+        return cards.stream()
+                .filter(card -> customers.containsKey(card.getCustomerId()) && card.getCardNumber().contains(term))
+                .map(CardRow::getCustomerId)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+    
+    private List<String> sampleSubstrings(String value) {
+        List<String> substrings = new ArrayList<>();
+        for (int length = 1; length <= Math.min(6, value.length()); length++) {
+            int start = random.nextInt(value.length() - length + 1);
+            substrings.add(value.substring(start, start + length));
+        }
+        return substrings;
+    }
+    
+    private void saveCustomer(Long id, String name, String email, String phone) {
+        customers.put(id, new CustomerRow(id, name, email, phone));
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName(name);
+        customer.setEmail(email);
+        customer.setPhone(phone);
+        searchIndex.customerSaved(customer);
+    }
+    
+    private void deleteCustomer(Long id) {
+        customers.remove(id);
+        searchIndex.customerDeleted(id);
+    }
+    
+    private void addCard(Long customerId, String cardNumber) {
+        cards.add(new CardRow((long) cards.size() + 1, customerId, cardNumber));
+        searchIndex.cardAdded(customerId, cardNumber);
+    }
+    
+    private String randomName() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 2 + random.nextInt(3); i > 0; i--) {
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name + " " + SYLLABLES[random.nextInt(SYLLABLES.length)] + SYLLABLES[random.nextInt(SYLLABLES.length)];
+    }
+    
+    private String randomCardNumber() {
+        StringBuilder number = new StringBuilder("4");
+        for (int i = 0; i < 15; i++) {
+            number.append(random.nextInt(10));
+        }
+        return number.toString();
+    }
+    
+    private String randomTerm() {
+        StringBuilder term = new StringBuilder();
+        for (int i = 1 + random.nextInt(4); i > 0; i--) {
+            term.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return term.toString();
+    }
+    
+    private static <T> List<T> page(Collection<T> rows, ToLongFunction<T> id, long afterId, Pageable pageable) {
+        return rows.stream()
+                .filter(row -> id.applyAsLong(row) > afterId)
+                .sorted(Comparator.comparingLong(id))
+                .limit(pageable.getPageSize())
+                .toList();
+    }
+    
+    private record CustomerRow(Long id, String name, String email, String phone) implements CustomerRepository.SearchFields {
+        
+        @Override
+        public Long getId() {
+            return id;
+        }
+        
+        @Override
+        public String getName() {
+            return name;
+        }
+        
+        @Override
+        public String getEmail() {
+            return email;
+        }
+        
+        @Override
+        public String getPhone() {
+            return phone;
+        }
+    }
+    
+    private record CardRow(Long id, Long customerId, String cardNumber) implements CreditCardRepository.CardNumberRef {
+        
+        @Override
+        public Long getId() {
+            return id;
+        }
+        
+        @Override
+        public Long getCustomerId() {
+            return customerId;
+        }
+        
+        @Override
+        public String getCardNumber() {
+            return cardNumber;
+        }
+    }
+}
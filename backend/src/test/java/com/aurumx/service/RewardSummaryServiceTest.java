@@ -0,0 +1,164 @@
+package com.aurumx.service;
+
+import com.aurumx.dto.request.AddCreditCardRequest;
+import com.aurumx.dto.request.CreateCustomerRequest;
+import com.aurumx.entity.CreditCard;
+import com.aurumx.entity.CustomerRewardSummary;
+import com.aurumx.entity.Reward;
+import com.aurumx.repository.CustomerRewardSummaryRepository;
+import com.aurumx.repository.RewardRepository;
+import com.aurumx.util.Points;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rebuild and reconciliation racing each other and live accruals must neither fail on the
+ * summary's primary key nor overwrite points credited meanwhile
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RewardSummaryServiceTest {
+    
+    private static final int THREADS = 8;
+    private static final int ACCRUALS_PER_THREAD = 25;
+    
+    @Autowired
+    private RewardSummaryService rewardSummaryService;
+    
+    @Autowired
+    private CustomerService customerService;
+    
+    @Autowired
+    private CreditCardService creditCardService;
+    
+    @Autowired
+    private RewardRepository rewardRepository;
+    
+    @Autowired
+    private CustomerRewardSummaryRepository summaryRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void concurrentRebuildsOfAMissingSummaryCreateItOnce() throws Exception {
+        CreditCard card = createCard("rebuild", BigDecimal.valueOf(250));
+        Long customerId = card.getCustomer().getId();
+        summaryRepository.deleteById(customerId);
+        
+        runConcurrently(THREADS, () -> rewardSummaryService.rebuild(customerId));
+        
+        CustomerRewardSummary summary = summaryRepository.findById(customerId).orElseThrow();
+        assertThat(summary.getPointsBalance()).isEqualByComparingTo("250");
+    }
+    
+    @Test
+    void accrualsOnAMissingSummaryAreAllCounted() throws Exception {
+        CreditCard card = createCard("missing", BigDecimal.ZERO);
+        Long customerId = card.getCustomer().getId();
+        summaryRepository.deleteById(customerId);
+        
+        runConcurrently(THREADS, () -> accrueOnePoint(card));
+        
+        CustomerRewardSummary summary = summaryRepository.findById(customerId).orElseThrow();
+        assertThat(summary.getPointsBalance()).isEqualByComparingTo(BigDecimal.valueOf(THREADS));
+    }
+    
+    @Test
+    void reconciliationDoesNotOverwriteConcurrentAccruals() throws Exception {
+        CreditCard card = createCard("reconcile", BigDecimal.ZERO);
+        Long customerId = card.getCustomer().getId();
+        
+        AtomicBoolean accruing = new AtomicBoolean(true);
+        ExecutorService reconciler = Executors.newSingleThreadExecutor();
+        Future<?> reconciling = reconciler.submit(() -> {
+            while (accruing.get()) {
+                rewardSummaryService.reconcileAll();
+            }
+        });
+        try {
+            runConcurrently(THREADS, () -> {
+                for (int i = 0; i < ACCRUALS_PER_THREAD; i++) {
+                    accrueOnePoint(card);
+                }
+            });
+        } finally {
+            accruing.set(false);
+            reconciler.shutdown();
+        }
+        reconciling.get(30, TimeUnit.SECONDS);
+        
+        CustomerRewardSummary summary = summaryRepository.findById(customerId).orElseThrow();
+        assertThat(summary.getPointsBalance())
+                .isEqualByComparingTo(BigDecimal.valueOf((long) THREADS * ACCRUALS_PER_THREAD));
+    }
+    
+    /**
+     * Same shape as RewardService: credit the Reward row, then the summary, in one transaction
+     */
+    private void accrueOnePoint(CreditCard card) {
+        transactionTemplate.executeWithoutResult(status -> {
+            rewardRepository.creditPoints(card.getId(), BigDecimal.ONE, LocalDateTime.now());
+            rewardSummaryService.recordAccrual(card.getCustomer().getId(), Points.ofWhole(1));
+        });
+    }
+    
+    private CreditCard createCard(String name, BigDecimal balance) {
+        CreateCustomerRequest customer = new CreateCustomerRequest();
+        customer.setName("Summary " + name);
+        customer.setEmail("summary-" + name + "@aurumx.test");
+        customer.setPhone("9100000000");
+        customer.setAssociationDate(LocalDate.now().minusYears(1));
+        Long customerId = customerService.createCustomer(customer).getId();
+        
+        AddCreditCardRequest cardRequest = new AddCreditCardRequest();
+        cardRequest.setCustomerId(customerId);
+        cardRequest.setCardNumber("4888" + String.format("%012d", Math.abs(name.hashCode())));
+        cardRequest.setCardHolderName("Summary " + name);
+        cardRequest.setExpiryDate(LocalDate.now().plusYears(2));
+        CreditCard card = creditCardService.addCreditCard(cardRequest);
+        
+        Reward reward = new Reward();
+        reward.setCreditCard(card);
+        reward.setCustomer(card.getCustomer());
+        reward.setPointsBalance(balance);
+        reward.setLifetimeEarned(balance);
+        rewardRepository.save(reward);
+        rewardSummaryService.rebuild(customerId);
+        return card;
+    }
+    
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.aurumx.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the distinct SQL Hibernate sends while recording is on
+ * Registered through hibernate.session_factory.statement_inspector, which instantiates it itself,
+ * so the statements are kept in a static set
+ */
+public class SqlRecorder implements StatementInspector {
+    
+    private static final Set<String> STATEMENTS = Collections.synchronizedSet(new LinkedHashSet<>());
+    private static volatile boolean recording;
+    
+    public static void start() {
+        STATEMENTS.clear();
+        recording = true;
+    }
+    
+    public static List<String> stop() {
+        recording = false;
+        synchronized (STATEMENTS) {
+            return List.copyOf(STATEMENTS);
+        }
+    }
+    
+    @Override
+    public String inspect(String sql) {
+        if (recording) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,29 @@
+package com.aurumx.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the JDBC statements Hibernate prepares while an action runs
+ * Relies on hibernate.generate_statistics, which application.yml turns on
+ */
+public class StatementCounter {
+    
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+    
+    private final Statistics statistics;
+    
+    public StatementCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    public long count(Action action) throws Exception {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,16 @@
+package com.aurumx.support;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.sequence.NoSequenceSupport;
+import org.hibernate.dialect.sequence.SequenceSupport;
+
+/**
+ * H2 without sequences, so pooled ids come from a table as they do on MySQL
+ */
+public class TableSequenceH2Dialect extends H2Dialect {
+    
+    @Override
+    public SequenceSupport getSequenceSupport() {
+        return NoSequenceSupport.INSTANCE;
+    }
+}
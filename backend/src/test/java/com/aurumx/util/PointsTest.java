@@ -0,0 +1,83 @@
+package com.aurumx.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Points.accrue must give exactly what amount * percentage / 100 rounded HALF_UP to scale 2 gives,
+ * on the long fast path and on the BigDecimal fallback alike
+ */
+class PointsTest {
+    
+    private static final long SEED = 20261018L;
+    private static final int CASES = 200_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    
+    @Test
+    void accrueMatchesBigDecimalForRandomAmounts() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < CASES; i++) {
+            // Up to 80 bits crosses the 18-digit fast path limit; negative scales are multiples of ten
+            BigInteger unscaled = new BigInteger(1 + random.nextInt(80), random);
+            BigDecimal amount = new BigDecimal(random.nextBoolean() ? unscaled.negate() : unscaled,
+                    random.nextInt(24) - 4);
+            assertAccrues(amount, percentage(random));
+        }
+    }
+    
+    @Test
+    void accrueMatchesBigDecimalOnRoundingTies() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < CASES; i++) {
+            // percentage 1 turns scale 3 into a thousandth of a point at scale 5, ending in 5 half the time
+            long unscaled = random.nextLong(1_000_000_000L) * 10 + (random.nextBoolean() ? 5 : random.nextInt(10));
+            BigDecimal amount = BigDecimal.valueOf(random.nextBoolean() ? -unscaled : unscaled, 1 + random.nextInt(4));
+            assertAccrues(amount, random.nextBoolean() ? 1 : percentage(random));
+        }
+    }
+    
+    @Test
+    void accrueMatchesBigDecimalAtTheLongBoundaries() {
+        int[] percentages = {0, 1, -1, 99, 100, 101, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (long unscaled : new long[]{0, 1, -1, 5, -5, 50, -50, Long.MAX_VALUE, Long.MIN_VALUE,
+                Long.MAX_VALUE / 100, Long.MIN_VALUE / 100, 999_999_999_999_999_999L}) {
+            for (int scale = -2; scale <= 20; scale++) {
+                for (int percentage : percentages) {
+                    assertAccrues(BigDecimal.valueOf(unscaled, scale), percentage);
+                }
+            }
+        }
+    }
+    
+    private static void assertAccrues(BigDecimal amount, int percentage) {
+        BigDecimal expected = amount.multiply(BigDecimal.valueOf(percentage))
+                .divide(HUNDRED, Points.SCALE, RoundingMode.HALF_UP);
+        
+        if (expected.unscaledValue().bitLength() > 63) {
+            assertThatThrownBy(() -> Points.accrue(amount, percentage))
+                    .as("%s at %d%%", amount, percentage)
+                    .isInstanceOf(ArithmeticException.class);
+        } else {
+            // equals, not compareTo: same unscaled value and scale
+            assertThat(Points.toBigDecimal(Points.accrue(amount, percentage)))
+                    .as("%s at %d%%", amount, percentage)
+                    .isEqualTo(expected);
+        }
+    }
+    
+    private static int percentage(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(101);
+            case 1 -> -random.nextInt(101);
+            case 2 -> random.nextInt(10_000);
+            default -> random.nextInt();
+        };
+    }
+}